@@ -2,12 +2,14 @@ package com.digibank;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * DigiBank - Smart City Digital Banking Module
  * Main application entry point
  */
 @SpringBootApplication
+@EnableScheduling
 public class DigiBankApplication {
     public static void main(String[] args) {
         SpringApplication.run(DigiBankApplication.class, args);
@@ -0,0 +1,59 @@
+package com.digibank.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+/**
+ * Moves tables created with identity ids over to the pooled sequences used by the entities.
+ * Runs once Hibernate has updated the schema: each sequence is advanced past max(id) so the
+ * first block handed out cannot collide with existing rows, and the identity default is dropped.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class SequenceMigration {
+    private static final Logger log = LoggerFactory.getLogger(SequenceMigration.class);
+    private static final Map<String, String> SEQUENCES = Map.of(
+        "users", "users_seq",
+        "accounts", "accounts_seq",
+        "transactions", "transactions_seq",
+        "audit_logs", "audit_logs_seq"
+    );
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void migrate() {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Serialise nodes starting at the same time
+            jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('digibank.sequence-migration'))");
+            SEQUENCES.forEach(this::migrate);
+        });
+    }
+
+    private void migrate(String table, String sequence) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id DROP IDENTITY IF EXISTS");
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        Map<String, Object> state = jdbcTemplate.queryForMap("SELECT last_value, is_called FROM " + sequence);
+        long lastValue = ((Number) state.get("last_value")).longValue();
+        boolean called = (Boolean) state.get("is_called");
+        // A fresh sequence reports last_value = start with is_called = false, and its first nextval returns
+        // that value itself, so an equal max(id) still collides
+        if (maxId != null && maxId >= lastValue) {
+            // The pooled optimizer uses (value - allocationSize, value], so the next block starts at maxId + 1
+            jdbcTemplate.queryForObject("SELECT setval(?, ?, true)", Long.class, sequence, maxId);
+            log.info("Advanced {} from {} (called: {}) to {}", sequence, lastValue, called, maxId);
+        }
+    }
+}
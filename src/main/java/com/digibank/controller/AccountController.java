@@ -1,10 +1,10 @@
 package com.digibank.controller;
 
 import com.digibank.dto.ApiResponse;
-import com.digibank.model.Account;
+import com.digibank.dto.BalanceSnapshot;
 import com.digibank.model.User;
+import com.digibank.security.CurrentUser;
 import com.digibank.service.AccountService;
-import com.digibank.service.AuthService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,16 +18,14 @@ public class AccountController {
     @Autowired
     private AccountService accountService;
 
-    @Autowired
-    private AuthService authService;
-
+    /**
+     * Fiat and crypto balances with the account version, normally served without a database read
+     */
     @GetMapping("/balance")
-    public ResponseEntity<ApiResponse<Account>> getBalance(
-            @RequestHeader("Authorization") String token) {
+    public ResponseEntity<ApiResponse<BalanceSnapshot>> getBalance(
+            @CurrentUser User user) {
         try {
-            User user = authService.validateToken(token.replace("Bearer ", ""));
-            Account account = accountService.getAccountByUserId(user.getId());
-            return ResponseEntity.ok(ApiResponse.success(account));
+            return ResponseEntity.ok(ApiResponse.success(accountService.getBalance(user.getId())));
         } catch (Exception e) {
             log.error("Failed to fetch balance: {}", e.getMessage());
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
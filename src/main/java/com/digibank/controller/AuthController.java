@@ -3,18 +3,26 @@ package com.digibank.controller;
 import com.digibank.dto.ApiResponse;
 import com.digibank.dto.LoginRequest;
 import com.digibank.dto.RegisterRequest;
+import com.digibank.dto.RevokeRequest;
 import com.digibank.model.User;
+import com.digibank.security.CurrentUser;
+import com.digibank.security.JwtAuthenticationFilter;
+import com.digibank.security.VerifiedToken;
 import com.digibank.service.AccountService;
 import com.digibank.service.AuthService;
+import com.digibank.service.JwtService;
+import com.digibank.service.TokenRevocationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -26,6 +34,12 @@ public class AuthController {
     @Autowired
     private AccountService accountService;
 
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TokenRevocationService revocationService;
+
     @PostMapping("/register")
     public ResponseEntity<ApiResponse<Map<String, Object>>> register(@RequestBody RegisterRequest request) {
         try {
@@ -46,6 +60,10 @@ public class AuthController {
 
             log.info("User registered: {}", user.getUsername());
             return ResponseEntity.ok(ApiResponse.success("User registered successfully", response));
+        } catch (RejectedExecutionException e) {
+            log.warn("Registration rejected: password hashing pool saturated or timed out");
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ApiResponse.error("Service busy, please retry"));
         } catch (Exception e) {
             log.error("Registration failed: {}", e.getMessage());
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
@@ -57,7 +75,8 @@ public class AuthController {
                                                                   HttpServletRequest httpRequest) {
         try {
             String token = authService.login(request.getUsername(), request.getPassword());
-            User user = authService.validateToken(token);
+            // Served from the principal cache populated by login()
+            User user = authService.getPrincipal(request.getUsername());
 
             Map<String, Object> response = new HashMap<>();
             response.put("token", token);
@@ -67,11 +86,49 @@ public class AuthController {
 
             log.info("User logged in: {}", user.getUsername());
             return ResponseEntity.ok(ApiResponse.success("Login successful", response));
+        } catch (RejectedExecutionException e) {
+            log.warn("Login rejected: password hashing pool saturated or timed out");
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ApiResponse.error("Service busy, please retry"));
         } catch (Exception e) {
             log.error("Login failed: {}", e.getMessage());
             return ResponseEntity.badRequest().body(ApiResponse.error("Invalid credentials"));
         }
     }
-}
 
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse<Void>> logout(
+            @CurrentUser User user,
+            HttpServletRequest httpRequest) {
+        try {
+            // Set by the authentication filter alongside the principal
+            VerifiedToken token = (VerifiedToken) httpRequest.getAttribute(JwtAuthenticationFilter.TOKEN_ATTRIBUTE);
+            revocationService.revoke(token);
+            log.info("User logged out: {}", user.getUsername());
+            return ResponseEntity.ok(ApiResponse.success("Logged out", null));
+        } catch (Exception e) {
+            log.error("Logout failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @PostMapping("/revoke")
+    public ResponseEntity<ApiResponse<Void>> revoke(@CurrentUser User user, @RequestBody RevokeRequest request) {
+        try {
+            VerifiedToken token = jwtService.verify(request.getToken());
+
+            // Users may revoke their own tokens; admins may revoke any
+            if (!user.getId().equals(token.userId()) && user.getRole() != User.UserRole.ADMIN) {
+                return ResponseEntity.status(403)
+                    .body(ApiResponse.error("Access denied"));
+            }
+
+            revocationService.revoke(token);
+            return ResponseEntity.ok(ApiResponse.success("Token revoked", null));
+        } catch (Exception e) {
+            log.error("Token revocation failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.error("Invalid token"));
+        }
+    }
+}
 
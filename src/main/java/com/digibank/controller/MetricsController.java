@@ -1,37 +1,95 @@
 package com.digibank.controller;
 
 import com.digibank.dto.ApiResponse;
+import com.digibank.dto.CursorPage;
+import com.digibank.dto.KeysetCursor;
+import com.digibank.metrics.RevenueCube;
 import com.digibank.model.AuditLog;
+import com.digibank.model.Transaction;
 import com.digibank.model.User;
+import com.digibank.pattern.adapter.CryptoAdapterRegistry;
 import com.digibank.pattern.singleton.CityController;
 import com.digibank.repository.AuditLogRepository;
-import com.digibank.service.AuthService;
+import com.digibank.repository.AuditLogRepositoryCustom;
+import com.digibank.security.CurrentUser;
+import com.digibank.security.PrincipalCache;
+import com.digibank.security.VelocityTracker;
+import com.digibank.security.fraud.FraudScoringEngine;
+import com.digibank.service.BalanceCache;
+import com.digibank.service.CryptoConfirmationService;
+import com.digibank.service.PasswordService;
+import com.digibank.service.RevenueAnalyticsService;
+import com.digibank.service.SpendingSummaryService;
+import com.digibank.service.StatementService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/metrics")
 public class MetricsController {
     private static final Logger log = LoggerFactory.getLogger(MetricsController.class);
-    @Autowired
-    private AuthService authService;
+    private static final int MAX_PAGE_SIZE = 1000;
+    static final String NDJSON = "application/x-ndjson";
 
     @Autowired
     private AuditLogRepository auditLogRepository;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private PasswordService passwordService;
+
+    @Autowired
+    private CryptoAdapterRegistry cryptoAdapterRegistry;
+
+    @Autowired
+    private CryptoConfirmationService cryptoConfirmationService;
+
+    @Autowired
+    private SpendingSummaryService spendingSummaryService;
+
+    @Autowired
+    private RevenueAnalyticsService revenueAnalyticsService;
+
+    @Autowired
+    private VelocityTracker velocityTracker;
+
+    @Autowired
+    private FraudScoringEngine fraudScoringEngine;
+
+    @Autowired
+    private BalanceCache balanceCache;
+
+    @Autowired
+    private StatementService statementService;
+
     @GetMapping
     public ResponseEntity<ApiResponse<Map<String, Object>>> getMetrics(
-            @RequestHeader("Authorization") String token) {
+            @CurrentUser User user) {
         try {
-            User user = authService.validateToken(token.replace("Bearer ", ""));
-            
             // Only admins can access metrics
             if (user.getRole() != User.UserRole.ADMIN) {
                 return ResponseEntity.status(403)
@@ -44,8 +102,20 @@ public class MetricsController {
             Map<String, Object> metrics = new HashMap<>();
             metrics.put("totalTransactions", controller.getTotalTransactions());
             metrics.put("totalRevenue", controller.getTotalRevenue());
+            metrics.put("byServiceType", controller.getRevenueByServiceType());
+            metrics.put("byPaymentType", controller.getRevenueByPaymentType());
+            metrics.put("byNetwork", controller.getRevenueByNetwork());
+            metrics.put("windows", controller.getWindows());
             metrics.put("systemActive", controller.isSystemActive());
             metrics.put("systemStartTime", controller.getSystemStartTime());
+            metrics.put("principalCache", principalCache.stats());
+            metrics.put("passwordHashing", passwordService.stats());
+            metrics.put("cryptoGateways", cryptoAdapterRegistry.stats());
+            metrics.put("cryptoConfirmations", cryptoConfirmationService.stats());
+            metrics.put("revenueCube", revenueAnalyticsService.stats());
+            metrics.put("velocity", velocityTracker.stats());
+            metrics.put("fraudScoring", fraudScoringEngine.stats());
+            metrics.put("balanceCache", balanceCache.stats());
 
             return ResponseEntity.ok(ApiResponse.success(metrics));
         } catch (Exception e) {
@@ -54,28 +124,141 @@ public class MetricsController {
         }
     }
 
+    /**
+     * Slice and roll up the in-memory revenue cube, e.g. completed parking revenue per hour today:
+     * {@code ?serviceType=PARKING&granularity=HOUR}. Defaults to completed transactions since midnight.
+     */
+    @GetMapping("/revenue")
+    public ResponseEntity<ApiResponse<List<RevenueCube.Row>>> getRevenue(
+            @CurrentUser User user,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "TOTAL") RevenueCube.Granularity granularity,
+            @RequestParam(required = false) Set<RevenueCube.Dimension> groupBy,
+            @RequestParam(required = false) Transaction.ServiceType serviceType,
+            @RequestParam(required = false) Transaction.PaymentType paymentType,
+            @RequestParam(required = false) String network,
+            @RequestParam(defaultValue = "COMPLETED") Transaction.TransactionStatus status,
+            @RequestParam(defaultValue = "false") boolean allStatuses) {
+        try {
+            if (user.getRole() != User.UserRole.ADMIN) {
+                return ResponseEntity.status(403)
+                    .body(ApiResponse.error("Access denied: Admin role required"));
+            }
+            LocalDateTime start = from != null ? from : LocalDate.now().atStartOfDay();
+            LocalDateTime end = to != null ? to : LocalDateTime.now().plusHours(1);
+            RevenueCube.Slice slice = new RevenueCube.Slice(serviceType, paymentType, network,
+                allStatuses ? null : status);
+            return ResponseEntity.ok(ApiResponse.success(revenueAnalyticsService.query(
+                start, end, granularity, groupBy != null ? groupBy : Set.of(), slice)));
+        } catch (Exception e) {
+            log.error("Failed to query revenue: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Backfill or repair per-user daily spend for [from, to) from the transactions table
+     */
+    @PostMapping("/spending/rebuild")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> rebuildSpending(
+            @CurrentUser User user,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            if (user.getRole() != User.UserRole.ADMIN) {
+                return ResponseEntity.status(403)
+                    .body(ApiResponse.error("Access denied: Admin role required"));
+            }
+            int rows = spendingSummaryService.rebuild(from, to);
+            log.info("Daily spend rebuilt for {} to {} by {}", from, to, user.getUsername());
+            return ResponseEntity.ok(ApiResponse.success(Map.of("from", from, "to", to, "rows", rows)));
+        } catch (Exception e) {
+            log.error("Failed to rebuild daily spend: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Audit logs, newest first, one keyset page at a time
+     */
     @GetMapping("/logs")
-    public ResponseEntity<ApiResponse<List<AuditLog>>> getLogs(
-            @RequestHeader("Authorization") String token,
-            @RequestParam(required = false) AuditLog.AuditEventType eventType) {
+    public ResponseEntity<ApiResponse<CursorPage<AuditLog>>> getLogs(
+            @CurrentUser User user,
+            @RequestParam(required = false) AuditLog.AuditEventType eventType,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
         try {
-            User user = authService.validateToken(token.replace("Bearer ", ""));
-            
             if (user.getRole() != User.UserRole.ADMIN) {
                 return ResponseEntity.status(403)
                     .body(ApiResponse.error("Access denied: Admin role required"));
             }
 
-            List<AuditLog> logs = eventType != null 
-                ? auditLogRepository.findByEventType(eventType)
-                : auditLogRepository.findAll();
+            int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            // Fetch one extra row to know whether another page follows
+            List<AuditLog> logs = auditLogRepository.findPage(
+                new AuditLogRepositoryCustom.Filter(eventType, userId, from, to),
+                KeysetCursor.decode(cursor), pageSize + 1);
+            String nextCursor = null;
+            if (logs.size() > pageSize) {
+                logs = logs.subList(0, pageSize);
+                AuditLog last = logs.get(pageSize - 1);
+                nextCursor = new KeysetCursor(last.getTimestamp(), last.getId()).encode();
+            }
 
-            return ResponseEntity.ok(ApiResponse.success(logs));
+            return ResponseEntity.ok(ApiResponse.success(new CursorPage<>(logs, nextCursor)));
         } catch (Exception e) {
             log.error("Failed to fetch logs: {}", e.getMessage());
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
     }
-}
 
+    /**
+     * Full audit log export as NDJSON, oldest first, streamed from a database cursor
+     */
+    @GetMapping(value = "/logs/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportLogs(
+            @CurrentUser User user,
+            @RequestParam(required = false) AuditLog.AuditEventType eventType,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (user.getRole() != User.UserRole.ADMIN) {
+            return ResponseEntity.status(403).build();
+        }
 
+        // Shares the statement export cap, since both hold a connection while streaming
+        try {
+            statementService.acquireSlot();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "30").build();
+        }
+
+        AuditLogRepositoryCustom.Filter filter = new AuditLogRepositoryCustom.Filter(eventType, userId, from, to);
+        StreamingResponseBody body = outputStream -> {
+            try {
+                BufferedOutputStream out = new BufferedOutputStream(outputStream, 8192);
+                auditLogRepository.streamAll(filter, auditLog -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(auditLog));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        // Client went away: abort the query instead of reading the rest of the table
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                out.flush();
+            } finally {
+                statementService.releaseSlot();
+            }
+        };
+        log.info("Audit log export started by {}", user.getUsername());
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(NDJSON))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=audit-logs.ndjson")
+            .body(body);
+    }
+}
@@ -1,52 +1,109 @@
 package com.digibank.controller;
 
 import com.digibank.dto.ApiResponse;
+import com.digibank.dto.BatchItemResult;
+import com.digibank.dto.BatchPaymentRequest;
 import com.digibank.dto.PaymentRequest;
-import com.digibank.model.Account;
 import com.digibank.model.Transaction;
 import com.digibank.model.User;
 import com.digibank.pattern.command.CryptoPaymentCommand;
 import com.digibank.pattern.command.FiatPaymentCommand;
 import com.digibank.pattern.command.PaymentCommand;
-import com.digibank.service.AccountService;
-import com.digibank.service.AuthService;
+import com.digibank.pattern.command.PendingPaymentCommand;
+import com.digibank.repository.TransactionRepository;
+import com.digibank.security.CurrentUser;
+import com.digibank.service.IdempotencyService;
+import com.digibank.service.PaymentPipeline;
 import com.digibank.service.PaymentService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/pay")
 public class PaymentController {
     private static final Logger log = LoggerFactory.getLogger(PaymentController.class);
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 200;
     @Autowired
     private PaymentService paymentService;
 
     @Autowired
-    private AccountService accountService;
+    private PaymentPipeline paymentPipeline;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
 
     @Autowired
-    private AuthService authService;
+    private IdempotencyService idempotencyService;
+
+    @Value("${payment.batch.max-size:500}")
+    private int maxBatchSize;
+
+    @Value("${payment.pipeline.max-wait-ms:30000}")
+    private long maxWaitMillis;
 
     @PostMapping("/fiat")
     public ResponseEntity<ApiResponse<Transaction>> payFiat(
-            @RequestHeader("Authorization") String token,
+            @CurrentUser User user,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestBody PaymentRequest request) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return executeFiat(user, request);
+        }
+        return executeIdempotent(user, "fiat", idempotencyKey, request, () -> executeFiat(user, request),
+            "Payment processed");
+    }
+
+    @PostMapping("/crypto")
+    public ResponseEntity<ApiResponse<Transaction>> payCrypto(
+            @CurrentUser User user,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @RequestBody PaymentRequest request) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return executeCrypto(user, request);
+        }
+        return executeIdempotent(user, "crypto", idempotencyKey, request, () -> executeCrypto(user, request),
+            "Crypto payment submitted");
+    }
+
+    private ResponseEntity<ApiResponse<Transaction>> executeIdempotent(
+            User user, String endpoint, String idempotencyKey, PaymentRequest request,
+            Supplier<ResponseEntity<ApiResponse<Transaction>>> payment, String message) {
+        if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error("Idempotency-Key is too long"));
+        }
         try {
-            User user = authService.validateToken(token.replace("Bearer ", ""));
-            Account account = accountService.getAccountByUserId(user.getId());
+            return idempotencyService.execute(user.getId(), endpoint, idempotencyKey, request, payment,
+                transaction -> ResponseEntity.ok(ApiResponse.success(message, transaction)));
+        } catch (Exception e) {
+            log.error("Idempotent {} payment failed: {}", endpoint, e.getMessage());
+            return ResponseEntity.status(409).body(ApiResponse.error(e.getMessage()));
+        }
+    }
 
+    private ResponseEntity<ApiResponse<Transaction>> executeFiat(User user, PaymentRequest request) {
+        try {
             // Command Pattern: Create and execute fiat payment command
             PaymentCommand command = new FiatPaymentCommand(
-                paymentService, user, account, request.getAmount(),
+                paymentService, user, request.getAmount(),
                 request.getServiceType(), request.getDescription()
             );
 
             if (!command.canExecute()) {
                 return ResponseEntity.badRequest()
-                    .body(ApiResponse.error("Insufficient balance"));
+                    .body(ApiResponse.error("Invalid payment request"));
             }
 
             Transaction transaction = command.execute();
@@ -58,39 +115,180 @@ public class PaymentController {
         }
     }
 
-    @PostMapping("/crypto")
-    public ResponseEntity<ApiResponse<Transaction>> payCrypto(
-            @RequestHeader("Authorization") String token,
-            @RequestBody PaymentRequest request) {
+    private ResponseEntity<ApiResponse<Transaction>> executeCrypto(User user, PaymentRequest request) {
         try {
             if (request.getCryptoNetwork() == null || request.getCryptoNetwork().isEmpty()) {
                 return ResponseEntity.badRequest()
                     .body(ApiResponse.error("Crypto network is required"));
             }
 
-            User user = authService.validateToken(token.replace("Bearer ", ""));
-            Account account = accountService.getAccountByUserId(user.getId());
-
             // Command Pattern: Create and execute crypto payment command
             PaymentCommand command = new CryptoPaymentCommand(
-                paymentService, user, account, request.getAmount(),
+                paymentService, user, request.getAmount(),
                 request.getCryptoNetwork(), request.getServiceType(), request.getDescription()
             );
 
             if (!command.canExecute()) {
                 return ResponseEntity.badRequest()
-                    .body(ApiResponse.error("Insufficient crypto balance"));
+                    .body(ApiResponse.error("Invalid payment request"));
             }
 
             Transaction transaction = command.execute();
-            log.info("Crypto payment executed: {} {} for user {}", 
+            log.info("Crypto payment submitted: {} {} for user {}", 
                 request.getAmount(), request.getCryptoNetwork(), user.getUsername());
-            return ResponseEntity.ok(ApiResponse.success("Crypto payment processed", transaction));
+            // Stays PENDING until the confirmation poller sees it on chain
+            return ResponseEntity.ok(ApiResponse.success("Crypto payment submitted", transaction));
+        } catch (RejectedExecutionException e) {
+            // Gateway bulkhead full or circuit open
+            log.warn("Crypto payment rejected: {}", e.getMessage());
+            return ResponseEntity.status(503).body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             log.error("Crypto payment failed: {}", e.getMessage());
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
     }
-}
 
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<List<BatchItemResult>>> payBatch(
+            @CurrentUser User user,
+            @RequestBody BatchPaymentRequest request) {
+        try {
+            List<PaymentRequest> payments = request.getPayments();
+            if (payments == null || payments.isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("At least one payment is required"));
+            }
+            if (payments.size() > maxBatchSize) {
+                return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Batch exceeds maximum size of " + maxBatchSize));
+            }
+
+            // Command Pattern: one command per payment, executed as a single unit of work
+            List<PaymentCommand> commands = new ArrayList<>(payments.size());
+            for (PaymentRequest payment : payments) {
+                commands.add(toCommand(user, payment));
+            }
 
+            BatchPaymentRequest.Mode mode = request.getMode() != null
+                ? request.getMode() : BatchPaymentRequest.Mode.ALL_OR_NOTHING;
+            List<BatchItemResult> results = paymentService.processBatch(commands, mode);
+            // The batch has committed: only now may reserved crypto payments reach a gateway
+            for (BatchItemResult result : results) {
+                if (result.getStatus() == BatchItemResult.Status.ACCEPTED) {
+                    queueReserved(result);
+                }
+            }
+            long completed = results.stream()
+                .filter(r -> r.getStatus() == BatchItemResult.Status.COMPLETED
+                    || r.getStatus() == BatchItemResult.Status.ACCEPTED)
+                .count();
+
+            log.info("Batch payment for user {}: {}/{} completed ({})",
+                user.getUsername(), completed, payments.size(), mode);
+            return ResponseEntity.ok(ApiResponse.success(
+                completed + " of " + payments.size() + " payments processed", results));
+        } catch (Exception e) {
+            log.error("Batch payment failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    private void queueReserved(BatchItemResult result) {
+        Transaction reserved = result.getTransaction();
+        try {
+            paymentPipeline.submit(new PendingPaymentCommand(paymentService, reserved));
+        } catch (RejectedExecutionException e) {
+            paymentService.abandonReservation(reserved.getId(), "payment pipeline full");
+            result.setStatus(BatchItemResult.Status.FAILED);
+            result.setMessage("Service busy, please retry");
+            result.setTransaction(null);
+            log.warn("Payment pipeline full, released batch payment {}", reserved.getId());
+        }
+    }
+
+    /**
+     * Accept-then-process: persists a PENDING transaction and returns 202 immediately
+     */
+    @PostMapping("/async")
+    public ResponseEntity<ApiResponse<Transaction>> payAsync(
+            @CurrentUser User user,
+            @RequestBody PaymentRequest request) {
+        try {
+            Transaction.PaymentType paymentType = request.getPaymentType() != null
+                ? request.getPaymentType() : Transaction.PaymentType.FIAT;
+            if (paymentType == Transaction.PaymentType.CRYPTO
+                    && (request.getCryptoNetwork() == null || request.getCryptoNetwork().isEmpty())) {
+                return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Crypto network is required"));
+            }
+
+            Transaction pending = paymentService.acceptPayment(user, paymentType, request.getAmount(),
+                request.getCryptoNetwork(), request.getServiceType(), request.getDescription());
+
+            // Command Pattern: queue the pending payment for a pipeline worker
+            try {
+                paymentPipeline.submit(new PendingPaymentCommand(paymentService, pending));
+            } catch (RejectedExecutionException e) {
+                paymentService.cancelPendingPayment(pending.getId());
+                log.warn("Payment pipeline full, cancelled payment {}", pending.getId());
+                return ResponseEntity.status(503).body(ApiResponse.error("Service busy, please retry"));
+            }
+
+            log.info("Payment {} accepted for user {}", pending.getId(), user.getUsername());
+            return ResponseEntity.accepted().body(ApiResponse.success("Payment accepted", pending));
+        } catch (Exception e) {
+            log.error("Async payment failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Payment status; with waitMs the request is held (without a servlet thread)
+     * until the payment leaves PENDING or the wait elapses
+     */
+    @GetMapping("/status/{id}")
+    public DeferredResult<ResponseEntity<ApiResponse<Transaction>>> getStatus(
+            @CurrentUser User user,
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") long waitMs) {
+        DeferredResult<ResponseEntity<ApiResponse<Transaction>>> result =
+            new DeferredResult<>(Math.max(1, Math.min(waitMs, maxWaitMillis)));
+        try {
+            Transaction transaction = transactionRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Transaction not found"));
+
+            if (!transaction.getUser().getId().equals(user.getId()) &&
+                user.getRole() != User.UserRole.ADMIN) {
+                result.setResult(ResponseEntity.status(403).body(ApiResponse.error("Access denied")));
+                return result;
+            }
+
+            CompletableFuture<Transaction> completion = paymentPipeline.completion(id);
+            if (transaction.getStatus() != Transaction.TransactionStatus.PENDING || waitMs <= 0 || completion == null) {
+                result.setResult(ResponseEntity.ok(ApiResponse.success(transaction)));
+                return result;
+            }
+
+            result.onTimeout(() -> result.setResult(ResponseEntity.ok(ApiResponse.success(transaction))));
+            completion.whenComplete((completed, error) -> result.setResult(ResponseEntity.ok(ApiResponse.success(
+                completed != null ? completed : transactionRepository.findById(id).orElse(transaction)))));
+        } catch (Exception e) {
+            log.error("Failed to fetch payment status: {}", e.getMessage());
+            result.setResult(ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage())));
+        }
+        return result;
+    }
+
+    private PaymentCommand toCommand(User user, PaymentRequest request) {
+        if (request.getPaymentType() == Transaction.PaymentType.CRYPTO) {
+            return new CryptoPaymentCommand(
+                paymentService, user, request.getAmount(),
+                request.getCryptoNetwork(), request.getServiceType(), request.getDescription()
+            );
+        }
+        return new FiatPaymentCommand(
+            paymentService, user, request.getAmount(),
+            request.getServiceType(), request.getDescription()
+        );
+    }
+}
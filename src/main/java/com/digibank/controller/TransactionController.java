@@ -1,52 +1,178 @@
 package com.digibank.controller;
 
 import com.digibank.dto.ApiResponse;
-import com.digibank.model.Transaction;
+import com.digibank.dto.CursorPage;
+import com.digibank.dto.KeysetCursor;
+import com.digibank.dto.SpendingSummary;
+import com.digibank.dto.TransactionSummary;
 import com.digibank.model.User;
+import com.digibank.model.Transaction;
 import com.digibank.repository.TransactionRepository;
-import com.digibank.service.AuthService;
+import com.digibank.repository.TransactionRepositoryCustom;
+import com.digibank.security.CurrentUser;
+import com.digibank.service.SpendingSummaryService;
+import com.digibank.service.StatementService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/transactions")
 public class TransactionController {
     private static final Logger log = LoggerFactory.getLogger(TransactionController.class);
+    private static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private TransactionRepository transactionRepository;
 
     @Autowired
-    private AuthService authService;
+    private StatementService statementService;
+
+    @Autowired
+    private SpendingSummaryService spendingSummaryService;
 
+    /**
+     * Transaction history, newest first, one keyset page at a time
+     */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<Transaction>>> getTransactions(
-            @RequestHeader("Authorization") String token) {
+    public ResponseEntity<ApiResponse<CursorPage<TransactionSummary>>> getTransactions(
+            @CurrentUser User user,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
         try {
-            User user = authService.validateToken(token.replace("Bearer ", ""));
-            List<Transaction> transactions = transactionRepository.findByUser(user);
-            return ResponseEntity.ok(ApiResponse.success(transactions));
+            int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            // Fetch one extra row to know whether another page follows
+            PageRequest page = PageRequest.of(0, pageSize + 1);
+            List<TransactionSummary> transactions = after == null
+                ? transactionRepository.findHistory(user.getId(), page)
+                : transactionRepository.findHistoryBefore(user.getId(), after.timestamp(), after.id(), page);
+
+            String nextCursor = null;
+            if (transactions.size() > pageSize) {
+                transactions = transactions.subList(0, pageSize);
+                TransactionSummary last = transactions.get(pageSize - 1);
+                nextCursor = new KeysetCursor(last.timestamp(), last.id()).encode();
+            }
+            return ResponseEntity.ok(ApiResponse.success(new CursorPage<>(transactions, nextCursor)));
         } catch (Exception e) {
             log.error("Failed to fetch transactions: {}", e.getMessage());
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
     }
 
+    /**
+     * Full statement, oldest first, streamed as CSV or NDJSON straight from a database cursor.
+     * Compressed with gzip when the client accepts it. Admins may export another user's statement.
+     */
+    @GetMapping("/statement")
+    public ResponseEntity<StreamingResponseBody> exportStatement(
+            @CurrentUser User user,
+            @RequestParam(defaultValue = "CSV") StatementService.Format format,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Transaction.ServiceType serviceType,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Long owner = userId != null ? userId : user.getId();
+        if (!owner.equals(user.getId()) && user.getRole() != User.UserRole.ADMIN) {
+            return ResponseEntity.status(403).build();
+        }
+        try {
+            statementService.acquireSlot();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "30").build();
+        }
+
+        boolean gzip = acceptsGzip(acceptEncoding);
+        TransactionRepositoryCustom.StatementFilter filter =
+            new TransactionRepositoryCustom.StatementFilter(from, to, serviceType);
+        StreamingResponseBody body = outputStream -> statementService.write(owner, filter, format, gzip, outputStream);
+        log.info("Statement export for user {} started by {}", owner, user.getUsername());
+
+        String extension = format == StatementService.Format.CSV ? "csv" : "ndjson";
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(format == StatementService.Format.CSV
+                ? new MediaType("text", "csv") : MediaType.parseMediaType(MetricsController.NDJSON))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=statement-" + owner + "." + extension)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    // gzip is accepted when listed as a coding of its own with a non-zero q-value
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        return Double.parseDouble(parameter.substring(2).trim()) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Completed spend per service and payment type for a month, or a whole year when month is omitted
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<ApiResponse<SpendingSummary>> getSummary(
+            @CurrentUser User user,
+            @RequestParam(required = false) Integer year,
+            @RequestParam(required = false) Integer month,
+            @RequestParam(required = false) Long userId) {
+        try {
+            Long owner = userId != null ? userId : user.getId();
+            if (!owner.equals(user.getId()) && user.getRole() != User.UserRole.ADMIN) {
+                return ResponseEntity.status(403)
+                    .body(ApiResponse.error("Access denied"));
+            }
+            int summaryYear = year != null ? year : LocalDate.now().getYear();
+            return ResponseEntity.ok(ApiResponse.success(
+                spendingSummaryService.summarize(owner, summaryYear, month)));
+        } catch (Exception e) {
+            log.error("Failed to fetch spending summary: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<Transaction>> getTransaction(
-            @RequestHeader("Authorization") String token,
+    public ResponseEntity<ApiResponse<TransactionSummary>> getTransaction(
+            @CurrentUser User user,
             @PathVariable Long id) {
         try {
-            User user = authService.validateToken(token.replace("Bearer ", ""));
-            Transaction transaction = transactionRepository.findById(id)
+            TransactionSummary transaction = transactionRepository.findSummaryById(id)
                 .orElseThrow(() -> new RuntimeException("Transaction not found"));
 
             // Verify transaction belongs to user
-            if (!transaction.getUser().getId().equals(user.getId()) && 
+            if (!transaction.userId().equals(user.getId()) && 
                 user.getRole() != User.UserRole.ADMIN) {
                 return ResponseEntity.status(403)
                     .body(ApiResponse.error("Access denied"));
@@ -0,0 +1,14 @@
+package com.digibank.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * A user's balances as of one committed account version
+ */
+public record BalanceSnapshot(
+    Long userId,
+    BigDecimal fiatBalance,
+    BigDecimal cryptoBalance,
+    Long version
+) {
+}
@@ -0,0 +1,72 @@
+package com.digibank.dto;
+
+import com.digibank.model.Transaction;
+
+public class BatchItemResult {
+    private int index;
+    private Status status;
+    private String message;
+    private Transaction transaction;
+
+    public BatchItemResult() {
+    }
+
+    public BatchItemResult(int index, Status status, String message, Transaction transaction) {
+        this.index = index;
+        this.status = status;
+        this.message = message;
+        this.transaction = transaction;
+    }
+
+    public static BatchItemResult completed(int index, Transaction transaction) {
+        return new BatchItemResult(index, Status.COMPLETED, "Payment processed", transaction);
+    }
+
+    public static BatchItemResult accepted(int index, Transaction transaction) {
+        return new BatchItemResult(index, Status.ACCEPTED, "Funds reserved, sent to the gateway after commit", transaction);
+    }
+
+    public static BatchItemResult failed(int index, String message) {
+        return new BatchItemResult(index, Status.FAILED, message, null);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    public void setTransaction(Transaction transaction) {
+        this.transaction = transaction;
+    }
+
+    public enum Status {
+        COMPLETED,
+        ACCEPTED,    // crypto: funds reserved in the batch, gateway call queued once the batch commits
+        FAILED,
+        ROLLED_BACK, // succeeded on its own but undone with the rest of the batch
+        SKIPPED      // not attempted because an earlier item aborted the batch
+    }
+}
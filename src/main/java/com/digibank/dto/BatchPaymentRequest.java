@@ -0,0 +1,29 @@
+package com.digibank.dto;
+
+import java.util.List;
+
+public class BatchPaymentRequest {
+    private Mode mode = Mode.ALL_OR_NOTHING;
+    private List<PaymentRequest> payments;
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public List<PaymentRequest> getPayments() {
+        return payments;
+    }
+
+    public void setPayments(List<PaymentRequest> payments) {
+        this.payments = payments;
+    }
+
+    public enum Mode {
+        ALL_OR_NOTHING, // any failure rolls back the whole batch
+        BEST_EFFORT     // failed items are recorded, the rest commit
+    }
+}
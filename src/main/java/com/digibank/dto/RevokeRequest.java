@@ -0,0 +1,13 @@
+package com.digibank.dto;
+
+public class RevokeRequest {
+    private String token;
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+}
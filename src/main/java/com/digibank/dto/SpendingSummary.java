@@ -0,0 +1,18 @@
+package com.digibank.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A user's completed spend over [from, to), overall and per service and payment type
+ */
+public record SpendingSummary(
+    Long userId,
+    LocalDate from,
+    LocalDate to,
+    long count,
+    BigDecimal total,
+    List<SpendingTotal> breakdown
+) {
+}
@@ -0,0 +1,17 @@
+package com.digibank.dto;
+
+import com.digibank.model.Transaction;
+
+import java.math.BigDecimal;
+
+/**
+ * Completed spend for one service and payment type over a period
+ */
+public record SpendingTotal(
+    Transaction.ServiceType serviceType,
+    Transaction.PaymentType paymentType,
+    long count,
+    BigDecimal total,
+    BigDecimal max
+) {
+}
@@ -0,0 +1,25 @@
+package com.digibank.dto;
+
+import com.digibank.model.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of a transaction for history listings. Built directly by a JPQL
+ * constructor expression, so the owning User is never loaded.
+ */
+public record TransactionSummary(
+    Long id,
+    String reference,
+    Long userId,
+    Transaction.PaymentType paymentType,
+    Transaction.ServiceType serviceType,
+    BigDecimal amount,
+    Transaction.TransactionStatus status,
+    String cryptoNetwork,
+    String transactionHash,
+    LocalDateTime timestamp,
+    String description
+) {
+}
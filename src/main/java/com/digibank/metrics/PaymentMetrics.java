@@ -0,0 +1,34 @@
+package com.digibank.metrics;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Payment count and amount for one dimension value, in minor units (cents) so nothing is rounded away
+ */
+public final class PaymentMetrics {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder amountMinor = new LongAdder();
+
+    public void record(long minorUnits) {
+        count.increment();
+        amountMinor.add(minorUnits);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public BigDecimal getAmount() {
+        return BigDecimal.valueOf(amountMinor.sum(), 2);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", getCount());
+        result.put("amount", getAmount());
+        return result;
+    }
+}
@@ -0,0 +1,89 @@
+package com.digibank.metrics;
+
+import com.digibank.model.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Timers for each stage of a payment (payment.stage) and for the payment as a whole
+ * (payment.duration), tagged by payment type, service type and outcome. Percentile histograms
+ * are published so latency quantiles can be aggregated across instances in Prometheus.
+ */
+@Component
+public class PaymentStageTimer {
+    public static final String NONE = "none";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Time a stage; the outcome is "success", or "error" if it throws
+     */
+    public <T> T time(String stage, Transaction.PaymentType type, Transaction.ServiceType service, Supplier<T> work) {
+        return time(stage, type, service, work, result -> "success");
+    }
+
+    /**
+     * Time a stage whose outcome depends on its result, e.g. a debit that finds insufficient funds
+     */
+    public <T> T time(String stage, Transaction.PaymentType type, Transaction.ServiceType service,
+                      Supplier<T> work, Function<T, String> outcome) {
+        long start = System.nanoTime();
+        String result = "error";
+        try {
+            T value = work.get();
+            result = outcome.apply(value);
+            return value;
+        } finally {
+            recordStage(stage, tag(type), tag(service), result, System.nanoTime() - start);
+        }
+    }
+
+    public void run(String stage, Transaction.PaymentType type, Transaction.ServiceType service, Runnable work) {
+        time(stage, type, service, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public void recordStage(String stage, String type, String service, String outcome, long nanos) {
+        Timer.builder("payment.stage")
+            .tag("stage", stage)
+            .tag("type", type)
+            .tag("service", service)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * End-to-end time and count of one payment request
+     */
+    public void recordPayment(Transaction.PaymentType type, Transaction.ServiceType service, String outcome, long nanos) {
+        Timer.builder("payment.duration")
+            .tag("type", tag(type))
+            .tag("service", tag(service))
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+        Counter.builder("payment.requests")
+            .tag("type", tag(type))
+            .tag("service", tag(service))
+            .tag("outcome", outcome)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    private static String tag(Enum<?> value) {
+        return value != null ? value.name() : NONE;
+    }
+}
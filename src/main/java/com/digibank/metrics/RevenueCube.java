@@ -0,0 +1,211 @@
+package com.digibank.metrics;
+
+import com.digibank.model.Transaction;
+import com.digibank.pattern.adapter.CryptoAdapterFactory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count and amount (in minor units) per hour x service type x payment type x network x status.
+ * Each hour is one dense array of cells, allocated on first use and updated lock-free, so a
+ * query over a day touches 24 small arrays and never the database.
+ */
+public final class RevenueCube {
+    private static final long SECONDS_PER_HOUR = 3600;
+    private static final Transaction.ServiceType[] SERVICE_TYPES = Transaction.ServiceType.values();
+    private static final Transaction.PaymentType[] PAYMENT_TYPES = Transaction.PaymentType.values();
+    private static final Transaction.TransactionStatus[] STATUSES = Transaction.TransactionStatus.values();
+
+    public enum Dimension {
+        SERVICE_TYPE, PAYMENT_TYPE, NETWORK, STATUS
+    }
+
+    public enum Granularity {
+        HOUR, DAY, TOTAL
+    }
+
+    /**
+     * Fixed dimension values to filter on; null means all values
+     */
+    public record Slice(Transaction.ServiceType serviceType, Transaction.PaymentType paymentType,
+                        String network, Transaction.TransactionStatus status) {
+    }
+
+    /**
+     * One aggregated cell; dimensions that were rolled up are null
+     */
+    public record Row(LocalDateTime bucket, Transaction.ServiceType serviceType, Transaction.PaymentType paymentType,
+                      String network, Transaction.TransactionStatus status, long count, BigDecimal amount) {
+    }
+
+    // Network index 0 is "no network" (fiat); crypto networks follow in the given order
+    private final String[] networks;
+    private final int cells;
+    private final Map<Long, AtomicLongArray> hours = new ConcurrentHashMap<>();
+
+    public RevenueCube(List<String> cryptoNetworks) {
+        this.networks = new String[cryptoNetworks.size() + 1];
+        for (int i = 0; i < cryptoNetworks.size(); i++) {
+            networks[i + 1] = cryptoNetworks.get(i);
+        }
+        this.cells = SERVICE_TYPES.length * PAYMENT_TYPES.length * networks.length * STATUSES.length;
+    }
+
+    /**
+     * Add count transactions totalling amount to one cell; a negative count removes them
+     */
+    public void add(LocalDateTime timestamp, Transaction.ServiceType serviceType, Transaction.PaymentType paymentType,
+                    String network, Transaction.TransactionStatus status, long count, BigDecimal amount) {
+        int cell = cell(serviceType.ordinal(), paymentType.ordinal(), networkIndex(network), status.ordinal());
+        AtomicLongArray hour = hours.computeIfAbsent(hour(timestamp), h -> new AtomicLongArray(2 * cells));
+        hour.addAndGet(2 * cell, count);
+        hour.addAndGet(2 * cell + 1, minorUnits(amount) * Long.signum(count));
+    }
+
+    /**
+     * Move one transaction from its previous status to its current one, within its hour
+     */
+    public void move(LocalDateTime timestamp, Transaction.ServiceType serviceType, Transaction.PaymentType paymentType,
+                     String network, Transaction.TransactionStatus from, Transaction.TransactionStatus to,
+                     BigDecimal amount) {
+        if (from != null) {
+            add(timestamp, serviceType, paymentType, network, from, -1, amount);
+        }
+        add(timestamp, serviceType, paymentType, network, to, 1, amount);
+    }
+
+    /**
+     * Aggregate [from, to) at the given granularity, keeping the grouped dimensions and rolling
+     * up the rest. Payment type and network are always kept, so an amount is only ever summed
+     * within one currency. Rows come back in time order.
+     */
+    public List<Row> query(LocalDateTime from, LocalDateTime to, Granularity granularity,
+                           Set<Dimension> groupBy, Slice slice) {
+        int service = slice.serviceType() != null ? slice.serviceType().ordinal() : -1;
+        int payment = slice.paymentType() != null ? slice.paymentType().ordinal() : -1;
+        int network = slice.network() != null ? networkIndex(slice.network()) : -1;
+        int status = slice.status() != null ? slice.status().ordinal() : -1;
+        Set<Dimension> grouped = EnumSet.of(Dimension.PAYMENT_TYPE, Dimension.NETWORK);
+        grouped.addAll(groupBy);
+
+        TreeMap<Long, long[]> totals = new TreeMap<>();
+        long last = hour(to);
+        for (long h = hour(from); h < last; h++) {
+            AtomicLongArray hour = hours.get(h);
+            if (hour == null) {
+                continue;
+            }
+            long bucket = switch (granularity) {
+                case HOUR -> h;
+                case DAY -> Math.floorDiv(h, 24) * 24;
+                case TOTAL -> 0;
+            };
+            for (int c = 0; c < cells; c++) {
+                long count = hour.get(2 * c);
+                long amount = hour.get(2 * c + 1);
+                if (count == 0 && amount == 0) {
+                    continue;
+                }
+                int s = c % STATUSES.length;
+                int n = (c / STATUSES.length) % networks.length;
+                int p = (c / (STATUSES.length * networks.length)) % PAYMENT_TYPES.length;
+                int v = c / (STATUSES.length * networks.length * PAYMENT_TYPES.length);
+                if ((service >= 0 && v != service) || (payment >= 0 && p != payment)
+                        || (network >= 0 && n != network) || (status >= 0 && s != status)) {
+                    continue;
+                }
+                // Rolled-up dimensions collapse to index 0 so their cells share one group
+                int group = cell(
+                    grouped.contains(Dimension.SERVICE_TYPE) ? v : 0,
+                    grouped.contains(Dimension.PAYMENT_TYPE) ? p : 0,
+                    grouped.contains(Dimension.NETWORK) ? n : 0,
+                    grouped.contains(Dimension.STATUS) ? s : 0);
+                long[] total = totals.computeIfAbsent(bucket * cells + group, k -> new long[2]);
+                total[0] += count;
+                total[1] += amount;
+            }
+        }
+
+        List<Row> rows = new ArrayList<>(totals.size());
+        totals.forEach((key, total) -> {
+            long bucket = Math.floorDiv(key, cells);
+            int group = (int) Math.floorMod(key, (long) cells);
+            int s = group % STATUSES.length;
+            int n = (group / STATUSES.length) % networks.length;
+            int p = (group / (STATUSES.length * networks.length)) % PAYMENT_TYPES.length;
+            int v = group / (STATUSES.length * networks.length * PAYMENT_TYPES.length);
+            rows.add(new Row(
+                granularity == Granularity.TOTAL ? null : LocalDateTime.ofEpochSecond(bucket * SECONDS_PER_HOUR, 0, ZoneOffset.UTC),
+                grouped.contains(Dimension.SERVICE_TYPE) ? SERVICE_TYPES[v] : null,
+                grouped.contains(Dimension.PAYMENT_TYPE) ? PAYMENT_TYPES[p] : null,
+                grouped.contains(Dimension.NETWORK) ? networks[n] : null,
+                grouped.contains(Dimension.STATUS) ? STATUSES[s] : null,
+                total[0],
+                BigDecimal.valueOf(total[1], 2)));
+        });
+        return rows;
+    }
+
+    /**
+     * Drop hours before the cutoff; returns how many were removed
+     */
+    public int evictBefore(LocalDateTime cutoff) {
+        long limit = hour(cutoff);
+        int before = hours.size();
+        hours.keySet().removeIf(h -> h < limit);
+        return before - hours.size();
+    }
+
+    public void clear() {
+        hours.clear();
+    }
+
+    public int hourCount() {
+        return hours.size();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hours", hourCount());
+        result.put("cellsPerHour", cells);
+        return result;
+    }
+
+    private int cell(int service, int payment, int network, int status) {
+        return ((service * PAYMENT_TYPES.length + payment) * networks.length + network) * STATUSES.length + status;
+    }
+
+    private int networkIndex(String network) {
+        if (network == null) {
+            return 0;
+        }
+        String canonical = CryptoAdapterFactory.canonicalNetwork(network);
+        for (int i = 1; i < networks.length; i++) {
+            if (networks[i].equals(canonical)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    // Timestamps are local date-times throughout the app; UTC here only numbers the hours
+    private static long hour(LocalDateTime timestamp) {
+        return Math.floorDiv(timestamp.toEpochSecond(ZoneOffset.UTC), SECONDS_PER_HOUR);
+    }
+
+    private static long minorUnits(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
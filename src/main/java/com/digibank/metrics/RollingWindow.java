@@ -0,0 +1,68 @@
+package com.digibank.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ring buffer of time buckets holding an event count and a summed amount, e.g. 60 one-second
+ * buckets for the trailing minute. Writers add to striped adders; a bucket is reset by the first
+ * writer of a new period, so counts at a bucket boundary are approximate. Readers only sum.
+ */
+public final class RollingWindow {
+    private final long bucketMillis;
+    private final int buckets;
+    private final AtomicLongArray stamps;
+    private final LongAdder[] counts;
+    private final LongAdder[] sums;
+
+    public RollingWindow(long bucketMillis, int buckets) {
+        this.bucketMillis = bucketMillis;
+        this.buckets = buckets;
+        this.stamps = new AtomicLongArray(buckets);
+        this.counts = new LongAdder[buckets];
+        this.sums = new LongAdder[buckets];
+        for (int i = 0; i < buckets; i++) {
+            counts[i] = new LongAdder();
+            sums[i] = new LongAdder();
+        }
+    }
+
+    public void increment() {
+        record(1, 0);
+    }
+
+    public void record(long events, long amount) {
+        long period = System.currentTimeMillis() / bucketMillis;
+        int slot = (int) (period % buckets);
+        long stamp = stamps.get(slot);
+        if (stamp != period && stamps.compareAndSet(slot, stamp, period)) {
+            counts[slot].reset();
+            sums[slot].reset();
+        }
+        counts[slot].add(events);
+        sums[slot].add(amount);
+    }
+
+    public long count() {
+        return total(counts);
+    }
+
+    public long sum() {
+        return total(sums);
+    }
+
+    public double perSecond() {
+        return count() * 1000.0 / (bucketMillis * buckets);
+    }
+
+    private long total(LongAdder[] adders) {
+        long now = System.currentTimeMillis() / bucketMillis;
+        long total = 0;
+        for (int i = 0; i < buckets; i++) {
+            if (now - stamps.get(i) < buckets) {
+                total += adders[i].sum();
+            }
+        }
+        return total;
+    }
+}
@@ -12,7 +12,8 @@ import java.time.LocalDateTime;
 @Table(name = "accounts")
 public class Account {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_seq")
+    @SequenceGenerator(name = "accounts_seq", sequenceName = "accounts_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne
@@ -25,6 +26,11 @@ public class Account {
     @Column(nullable = false, precision = 19, scale = 8)
     private BigDecimal cryptoBalance = BigDecimal.ZERO;
 
+    // Optimistic concurrency; the default backfills rows created before this column existed
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
@@ -75,6 +81,14 @@ public class Account {
         this.cryptoBalance = cryptoBalance;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
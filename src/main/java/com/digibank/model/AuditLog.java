@@ -8,10 +8,16 @@ import java.time.LocalDateTime;
  * Audit log entity for security and compliance tracking
  */
 @Entity
-@Table(name = "audit_logs")
+@Table(name = "audit_logs", indexes = {
+    // Keyset pagination on (timestamp, id), optionally narrowed by user or event type
+    @Index(name = "idx_audit_logs_timestamp_id", columnList = "timestamp, id"),
+    @Index(name = "idx_audit_logs_user_timestamp", columnList = "userId, timestamp, id"),
+    @Index(name = "idx_audit_logs_event_timestamp", columnList = "eventType, timestamp, id")
+})
 public class AuditLog {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_logs_seq")
+    @SequenceGenerator(name = "audit_logs_seq", sequenceName = "audit_logs_seq", allocationSize = 50)
     private Long id;
 
     @Column
@@ -35,7 +41,9 @@ public class AuditLog {
 
     @PrePersist
     protected void onCreate() {
-        timestamp = LocalDateTime.now();
+        if (timestamp == null) {
+            timestamp = LocalDateTime.now();
+        }
     }
 
     // Getters and Setters
@@ -1,5 +1,6 @@
 package com.digibank.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 import java.math.BigDecimal;
@@ -9,12 +10,27 @@ import java.time.LocalDateTime;
  * Transaction entity for tracking all payments
  */
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+    // Keyset-paginated history per user, newest first
+    @Index(name = "idx_transactions_user_timestamp", columnList = "user_id, timestamp, id")
+})
 public class Transaction {
+    public static final int MAX_DESCRIPTION_LENGTH = 1000;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
+    // Client-visible, time-ordered reference; the numeric id stays internal
+    @Column(unique = true, length = 16)
+    private String reference;
+
+    // Scoped Idempotency-Key of the request that created the payment; unique, so a retry cannot pay twice
+    @JsonIgnore
+    @Column(unique = true, length = 300)
+    private String idempotencyKey;
+
     @ManyToOne
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -40,10 +56,17 @@ public class Transaction {
     @Column
     private String transactionHash; // For crypto transactions
 
+    // Crypto funds already debited while the gateway call is outstanding
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    private boolean fundsReserved;
+
+    // When the payment was handed to the gateway; null until then
+    private LocalDateTime submittedAt;
+
     @Column(nullable = false)
     private LocalDateTime timestamp;
 
-    @Column(length = 1000)
+    @Column(length = MAX_DESCRIPTION_LENGTH)
     private String description;
 
     @PrePersist
@@ -60,6 +83,22 @@ public class Transaction {
         this.id = id;
     }
 
+    public String getReference() {
+        return reference;
+    }
+
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
     public User getUser() {
         return user;
     }
@@ -116,6 +155,22 @@ public class Transaction {
         this.transactionHash = transactionHash;
     }
 
+    public boolean isFundsReserved() {
+        return fundsReserved;
+    }
+
+    public void setFundsReserved(boolean fundsReserved) {
+        this.fundsReserved = fundsReserved;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(LocalDateTime submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
@@ -132,6 +187,10 @@ public class Transaction {
         this.description = description;
     }
 
+    /**
+     * Fiat amounts are in currency and crypto amounts in coins, so amounts of different payment
+     * types are never added up or compared; limits and statistics are kept per type.
+     */
     public enum PaymentType {
         FIAT,
         CRYPTO
@@ -0,0 +1,99 @@
+package com.digibank.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Completed spend of one user on one day for one service and payment type.
+ * Rows are upserted in the same transaction as the payment and rebuilt from transactions on demand.
+ */
+@Entity
+@Table(name = "user_daily_spend")
+@IdClass(UserDailySpend.Key.class)
+public class UserDailySpend {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "day")
+    private LocalDate day;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "service_type", length = 32)
+    private Transaction.ServiceType serviceType;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_type", length = 16)
+    private Transaction.PaymentType paymentType;
+
+    @Column(nullable = false)
+    private long txCount;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal maxAmount;
+
+    // Getters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public Transaction.ServiceType getServiceType() {
+        return serviceType;
+    }
+
+    public Transaction.PaymentType getPaymentType() {
+        return paymentType;
+    }
+
+    public long getTxCount() {
+        return txCount;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Long userId;
+        private LocalDate day;
+        private Transaction.ServiceType serviceType;
+        private Transaction.PaymentType paymentType;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key key)) {
+                return false;
+            }
+            return Objects.equals(userId, key.userId) && Objects.equals(day, key.day)
+                && serviceType == key.serviceType && paymentType == key.paymentType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, day, serviceType, paymentType);
+        }
+    }
+}
@@ -1,25 +1,52 @@
 package com.digibank.pattern.adapter;
 
+import com.digibank.service.SnowflakeIdGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Adapter Factory
+ * Instances are created once per network and shared through CryptoAdapterRegistry
  */
 public class CryptoAdapterFactory {
     private static final Logger log = LoggerFactory.getLogger(CryptoAdapterFactory.class);
-    
-    public static CryptoPaymentAdapter getAdapter(String network) {
+
+    private static final Map<String, List<String>> ALIASES = Map.of(
+        "ETH", List.of("ETH", "ETHEREUM"),
+        "BTC", List.of("BTC", "BITCOIN"),
+        "MATIC", List.of("MATIC", "POLYGON")
+    );
+
+    public static CryptoPaymentAdapter createAdapter(String network, SnowflakeIdGenerator ids) {
+        return switch (canonicalNetwork(network)) {
+            case "BTC" -> new BitcoinAdapter(ids);
+            case "MATIC" -> new PolygonAdapter(ids);
+            default -> new EthereumAdapter(ids);
+        };
+    }
+
+    /**
+     * Map a network name or alias to its canonical code (ETH, BTC or MATIC)
+     */
+    public static String canonicalNetwork(String network) {
         return switch (network.toUpperCase()) {
-            case "ETH", "ETHEREUM" -> new EthereumAdapter();
-            case "BTC", "BITCOIN" -> new BitcoinAdapter();
-            case "MATIC", "POLYGON" -> new PolygonAdapter();
+            case "ETH", "ETHEREUM" -> "ETH";
+            case "BTC", "BITCOIN" -> "BTC";
+            case "MATIC", "POLYGON" -> "MATIC";
             default -> {
                 log.warn("Unknown network {}, defaulting to Ethereum", network);
-                yield new EthereumAdapter();
+                yield "ETH";
             }
         };
     }
-}
-
 
+    /**
+     * Every upper-case name stored for a canonical network
+     */
+    public static List<String> aliases(String canonicalNetwork) {
+        return ALIASES.get(canonicalNetwork);
+    }
+}
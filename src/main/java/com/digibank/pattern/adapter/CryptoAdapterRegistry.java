@@ -0,0 +1,122 @@
+package com.digibank.pattern.adapter;
+
+import com.digibank.service.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registry of one {@link NetworkGateway} per supported network. Settings are read from
+ * crypto.gateway.* and crypto.simulator.*, and can be overridden per network, e.g.
+ * crypto.gateway.btc.deadline-ms.
+ */
+@Component
+public class CryptoAdapterRegistry {
+    private static final Logger log = LoggerFactory.getLogger(CryptoAdapterRegistry.class);
+    private static final List<String> NETWORKS = List.of("ETH", "BTC", "MATIC");
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+
+    private final Map<String, NetworkGateway> gateways = new LinkedHashMap<>();
+    private ThreadPoolExecutor callbacks;
+
+    @PostConstruct
+    void init() {
+        int callbackThreads = environment.getProperty("crypto.gateway.callback-threads", Integer.class, 2);
+        AtomicInteger callbackIds = new AtomicInteger();
+        // Unbounded, but never holds more than the gateways' combined capacity
+        callbacks = new ThreadPoolExecutor(callbackThreads, callbackThreads, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), runnable -> daemon(runnable, "crypto-callback-" + callbackIds.incrementAndGet()));
+        ExecutorServiceMetrics.monitor(meterRegistry, callbacks, "crypto-callback");
+
+        boolean simulate = environment.getProperty("crypto.simulator.enabled", Boolean.class, false);
+        for (String network : NETWORKS) {
+            CryptoPaymentAdapter adapter = CryptoAdapterFactory.createAdapter(network, idGenerator);
+            if (simulate) {
+                adapter = new GatewaySimulator(adapter,
+                    setting("crypto.simulator", network, "latency-ms", Long.class, 50L),
+                    setting("crypto.simulator", network, "jitter-ms", Long.class, 25L),
+                    setting("crypto.simulator", network, "failure-rate", Double.class, 0.0));
+            }
+
+            int threads = setting("crypto.gateway", network, "threads", Integer.class, 8);
+            int queueCapacity = setting("crypto.gateway", network, "queue-capacity", Integer.class, 32);
+            AtomicInteger threadIds = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> daemon(runnable, "crypto-" + network.toLowerCase() + "-" + threadIds.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+            CircuitBreaker breaker = new CircuitBreaker(
+                setting("crypto.gateway", network, "breaker.failure-threshold", Integer.class, 5),
+                setting("crypto.gateway", network, "breaker.open-ms", Long.class, 30000L));
+            long deadline = setting("crypto.gateway", network, "deadline-ms", Long.class, 5000L);
+
+            NetworkGateway gateway = new NetworkGateway(network, adapter, executor, deadline, breaker, callbacks);
+            gateways.put(network, gateway);
+            ExecutorServiceMetrics.monitor(meterRegistry, executor, "crypto-gateway-" + network.toLowerCase());
+            Gauge.builder("crypto.gateway.circuit.open", gateway,
+                    g -> g.getCircuitState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .tag("network", network)
+                .register(meterRegistry);
+            log.info("Crypto gateway {}: {} threads, queue {}, deadline {}ms{}", network, threads, queueCapacity,
+                deadline, simulate ? " (simulated)" : "");
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        gateways.values().forEach(NetworkGateway::shutdown);
+        callbacks.shutdown();
+    }
+
+    /**
+     * Gateway for a network name or alias; unknown networks fall back to Ethereum
+     */
+    public NetworkGateway gateway(String network) {
+        return gateways.get(CryptoAdapterFactory.canonicalNetwork(network));
+    }
+
+    public List<String> networks() {
+        return NETWORKS;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        gateways.forEach((network, gateway) -> result.put(network, gateway.stats()));
+        return result;
+    }
+
+    private <T> T setting(String prefix, String network, String key, Class<T> type, T defaultValue) {
+        T fallback = environment.getProperty(prefix + "." + key, type, defaultValue);
+        return environment.getProperty(prefix + "." + network.toLowerCase() + "." + key, type, fallback);
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
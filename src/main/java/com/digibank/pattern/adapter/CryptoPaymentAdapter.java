@@ -1,9 +1,11 @@
 package com.digibank.pattern.adapter;
 
+import com.digibank.service.SnowflakeIdGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 /**
  * Adapter Pattern: Interface for crypto payment gateways
@@ -13,6 +15,16 @@ public interface CryptoPaymentAdapter {
     String processPayment(String walletAddress, BigDecimal amount, String network);
     boolean verifyTransaction(String transactionHash, String network);
     String getNetworkName();
+
+    /**
+     * Verify several transactions in one gateway round trip; results are in input order.
+     * Gateways with a bulk lookup should override this.
+     */
+    default List<Boolean> verifyTransactions(List<String> transactionHashes, String network) {
+        return transactionHashes.stream()
+            .map(hash -> verifyTransaction(hash, network))
+            .toList();
+    }
 }
 
 /**
@@ -20,11 +32,17 @@ public interface CryptoPaymentAdapter {
  */
 class EthereumAdapter implements CryptoPaymentAdapter {
     private static final Logger log = LoggerFactory.getLogger(EthereumAdapter.class);
+    private final SnowflakeIdGenerator ids;
+
+    EthereumAdapter(SnowflakeIdGenerator ids) {
+        this.ids = ids;
+    }
+
     @Override
     public String processPayment(String walletAddress, BigDecimal amount, String network) {
         log.info("Processing Ethereum payment: {} ETH to {}", amount, walletAddress);
-        // Simulated transaction hash
-        return "0x" + System.currentTimeMillis() + "eth";
+        // Simulated transaction hash, unique across threads and nodes
+        return "0x" + ids.nextHex() + "eth";
     }
 
     @Override
@@ -44,11 +62,17 @@ class EthereumAdapter implements CryptoPaymentAdapter {
  */
 class BitcoinAdapter implements CryptoPaymentAdapter {
     private static final Logger log = LoggerFactory.getLogger(BitcoinAdapter.class);
+    private final SnowflakeIdGenerator ids;
+
+    BitcoinAdapter(SnowflakeIdGenerator ids) {
+        this.ids = ids;
+    }
+
     @Override
     public String processPayment(String walletAddress, BigDecimal amount, String network) {
         log.info("Processing Bitcoin payment: {} BTC to {}", amount, walletAddress);
-        // Simulated transaction hash
-        return "btc_" + System.currentTimeMillis();
+        // Simulated transaction hash, unique across threads and nodes
+        return "btc_" + ids.nextId();
     }
 
     @Override
@@ -68,11 +92,17 @@ class BitcoinAdapter implements CryptoPaymentAdapter {
  */
 class PolygonAdapter implements CryptoPaymentAdapter {
     private static final Logger log = LoggerFactory.getLogger(PolygonAdapter.class);
+    private final SnowflakeIdGenerator ids;
+
+    PolygonAdapter(SnowflakeIdGenerator ids) {
+        this.ids = ids;
+    }
+
     @Override
     public String processPayment(String walletAddress, BigDecimal amount, String network) {
         log.info("Processing Polygon payment: {} MATIC to {}", amount, walletAddress);
-        // Simulated transaction hash
-        return "0x" + System.currentTimeMillis() + "poly";
+        // Simulated transaction hash, unique across threads and nodes
+        return "0x" + ids.nextHex() + "poly";
     }
 
     @Override
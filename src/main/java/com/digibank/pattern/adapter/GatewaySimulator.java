@@ -0,0 +1,65 @@
+package com.digibank.pattern.adapter;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process gateway simulator for offline load tests. Wraps a real adapter and adds a base
+ * latency, an exponentially distributed tail with the given mean, and random failures.
+ */
+public class GatewaySimulator implements CryptoPaymentAdapter {
+    private final CryptoPaymentAdapter delegate;
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double failureRate;
+
+    public GatewaySimulator(CryptoPaymentAdapter delegate, long latencyMillis, long jitterMillis, double failureRate) {
+        this.delegate = delegate;
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public String processPayment(String walletAddress, BigDecimal amount, String network) {
+        simulateCall();
+        return delegate.processPayment(walletAddress, amount, network);
+    }
+
+    @Override
+    public boolean verifyTransaction(String transactionHash, String network) {
+        simulateCall();
+        return delegate.verifyTransaction(transactionHash, network);
+    }
+
+    @Override
+    public List<Boolean> verifyTransactions(List<String> transactionHashes, String network) {
+        // One simulated round trip for the whole batch
+        simulateCall();
+        return delegate.verifyTransactions(transactionHashes, network);
+    }
+
+    @Override
+    public String getNetworkName() {
+        return delegate.getNetworkName();
+    }
+
+    private void simulateCall() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = latencyMillis;
+        if (jitterMillis > 0) {
+            delay += (long) (-jitterMillis * Math.log(1.0 - random.nextDouble()));
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while calling " + getNetworkName() + " gateway");
+        }
+        if (random.nextDouble() < failureRate) {
+            throw new RuntimeException(getNetworkName() + " gateway unavailable (simulated)");
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.digibank.pattern.adapter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The gateway did not answer within its deadline. The call itself is not cancelled, so the
+ * outcome is unknown: it may still succeed or fail, and {@link #outcome()} completes when it does.
+ */
+public class GatewayTimeoutException extends TimeoutException {
+    private static final long serialVersionUID = 1L;
+
+    private final transient CompletableFuture<?> outcome;
+
+    public GatewayTimeoutException(String network, long deadlineMillis, CompletableFuture<?> outcome) {
+        super(network + " gateway did not answer within " + deadlineMillis + "ms");
+        this.outcome = outcome;
+    }
+
+    public CompletableFuture<?> outcome() {
+        return outcome;
+    }
+}
@@ -0,0 +1,111 @@
+package com.digibank.pattern.adapter;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking front for one network's adapter. Calls run on the network's own bounded
+ * executor (bulkhead) under a deadline and a circuit breaker, so a slow chain only
+ * uses up its own threads. Returned futures complete on the shared callback pool,
+ * never on a gateway or timer thread, so dependants may do blocking work. A missed deadline
+ * fails with {@link GatewayTimeoutException}; the call keeps running and its late answer is
+ * still delivered through the exception.
+ */
+public class NetworkGateway {
+    private final String network;
+    private final CryptoPaymentAdapter adapter;
+    private final ThreadPoolExecutor executor;
+    private final long deadlineMillis;
+    private final CircuitBreaker breaker;
+    private final Executor callbacks;
+
+    public NetworkGateway(String network, CryptoPaymentAdapter adapter, ThreadPoolExecutor executor,
+                          long deadlineMillis, CircuitBreaker breaker, Executor callbacks) {
+        this.network = network;
+        this.adapter = adapter;
+        this.executor = executor;
+        this.deadlineMillis = deadlineMillis;
+        this.breaker = breaker;
+        this.callbacks = callbacks;
+    }
+
+    public CompletableFuture<String> processPayment(String walletAddress, BigDecimal amount) {
+        return call(() -> adapter.processPayment(walletAddress, amount, network));
+    }
+
+    public CompletableFuture<Boolean> verifyTransaction(String transactionHash) {
+        return call(() -> adapter.verifyTransaction(transactionHash, network));
+    }
+
+    public CompletableFuture<List<Boolean>> verifyTransactions(List<String> transactionHashes) {
+        return call(() -> adapter.verifyTransactions(transactionHashes, network));
+    }
+
+    private <T> CompletableFuture<T> call(Supplier<T> task) {
+        if (!breaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(
+                new RejectedExecutionException(network + " gateway circuit is open"));
+        }
+        CompletableFuture<T> call;
+        try {
+            call = CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            breaker.release();
+            return CompletableFuture.failedFuture(new RejectedExecutionException(network + " gateway is saturated"));
+        }
+        // The deadline runs on a copy: a late answer still completes the call and is handed to the caller
+        CompletableFuture<T> outcome = call.whenCompleteAsync((result, error) -> {
+        }, callbacks);
+        return call.copy().orTimeout(deadlineMillis, TimeUnit.MILLISECONDS)
+            .whenComplete((result, error) -> {
+                if (error == null) {
+                    breaker.onSuccess();
+                } else {
+                    breaker.onFailure();
+                }
+            })
+            .handleAsync((result, error) -> {
+                if (error == null) {
+                    return result;
+                }
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                throw new CompletionException(cause instanceof TimeoutException
+                    ? new GatewayTimeoutException(network, deadlineMillis, outcome) : cause);
+            }, callbacks);
+    }
+
+    public String getNetwork() {
+        return network;
+    }
+
+    public CryptoPaymentAdapter getAdapter() {
+        return adapter;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return breaker.getState();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("circuit", breaker.getState());
+        result.put("active", executor.getActiveCount());
+        result.put("queueDepth", executor.getQueue().size());
+        result.put("deadlineMs", deadlineMillis);
+        return result;
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,6 +1,5 @@
 package com.digibank.pattern.command;
 
-import com.digibank.model.Account;
 import com.digibank.model.Transaction;
 import com.digibank.model.User;
 import com.digibank.service.PaymentService;
@@ -9,22 +8,21 @@ import java.math.BigDecimal;
 
 /**
  * Concrete Command: Crypto payment implementation
+ * Balance sufficiency is enforced atomically by the debit itself
  */
 public class CryptoPaymentCommand implements PaymentCommand {
     private PaymentService paymentService;
     private User user;
-    private Account account;
     private BigDecimal amount;
     private String cryptoNetwork;
     private Transaction.ServiceType serviceType;
     private String description;
 
-    public CryptoPaymentCommand(PaymentService paymentService, User user, Account account,
+    public CryptoPaymentCommand(PaymentService paymentService, User user,
                                BigDecimal amount, String cryptoNetwork, 
                                Transaction.ServiceType serviceType, String description) {
         this.paymentService = paymentService;
         this.user = user;
-        this.account = account;
         this.amount = amount;
         this.cryptoNetwork = cryptoNetwork;
         this.serviceType = serviceType;
@@ -34,9 +32,21 @@ public class CryptoPaymentCommand implements PaymentCommand {
     @Override
     public Transaction execute() {
         if (!canExecute()) {
-            throw new IllegalStateException("Payment cannot be executed: insufficient balance");
+            throw new IllegalStateException("Payment cannot be executed: invalid request");
         }
-        return paymentService.processCryptoPayment(user, account, amount, cryptoNetwork, serviceType, description);
+        return paymentService.processCryptoPayment(user, amount, cryptoNetwork, serviceType, description);
+    }
+
+    /**
+     * Reserve the funds only; the gateway is called later from the payment pipeline.
+     * Used inside batch transactions, which must not send anything that could still roll back.
+     */
+    @Override
+    public PaymentService.StagedPayment stage() {
+        if (!canExecute()) {
+            throw new IllegalStateException("Payment cannot be executed: invalid request");
+        }
+        return paymentService.stageCryptoPayment(user, amount, cryptoNetwork, serviceType, description);
     }
 
     @Override
@@ -47,8 +57,8 @@ public class CryptoPaymentCommand implements PaymentCommand {
 
     @Override
     public boolean canExecute() {
-        return account.getCryptoBalance().compareTo(amount) >= 0;
+        return amount != null && amount.signum() > 0 && serviceType != null
+            && cryptoNetwork != null && !cryptoNetwork.isEmpty()
+            && (description == null || description.length() <= Transaction.MAX_DESCRIPTION_LENGTH);
     }
 }
-
-
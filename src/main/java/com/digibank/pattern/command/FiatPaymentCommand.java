@@ -1,6 +1,5 @@
 package com.digibank.pattern.command;
 
-import com.digibank.model.Account;
 import com.digibank.model.Transaction;
 import com.digibank.model.User;
 import com.digibank.service.PaymentService;
@@ -9,20 +8,19 @@ import java.math.BigDecimal;
 
 /**
  * Concrete Command: Fiat payment implementation
+ * Balance sufficiency is enforced atomically by the debit itself
  */
 public class FiatPaymentCommand implements PaymentCommand {
     private PaymentService paymentService;
     private User user;
-    private Account account;
     private BigDecimal amount;
     private Transaction.ServiceType serviceType;
     private String description;
 
-    public FiatPaymentCommand(PaymentService paymentService, User user, Account account, 
+    public FiatPaymentCommand(PaymentService paymentService, User user,
                               BigDecimal amount, Transaction.ServiceType serviceType, String description) {
         this.paymentService = paymentService;
         this.user = user;
-        this.account = account;
         this.amount = amount;
         this.serviceType = serviceType;
         this.description = description;
@@ -31,21 +29,28 @@ public class FiatPaymentCommand implements PaymentCommand {
     @Override
     public Transaction execute() {
         if (!canExecute()) {
-            throw new IllegalStateException("Payment cannot be executed: insufficient balance");
+            throw new IllegalStateException("Payment cannot be executed: invalid request");
         }
-        return paymentService.processFiatPayment(user, account, amount, serviceType, description);
+        return paymentService.processFiatPayment(user, amount, serviceType, description);
+    }
+
+    @Override
+    public PaymentService.StagedPayment stage() {
+        if (!canExecute()) {
+            throw new IllegalStateException("Payment cannot be executed: invalid request");
+        }
+        return paymentService.stageFiatPayment(user, amount, serviceType, description);
     }
 
     @Override
     public void undo() {
         // Refund logic would go here
-        paymentService.refundFiatPayment(user, account, amount);
+        paymentService.refundFiatPayment(user, amount);
     }
 
     @Override
     public boolean canExecute() {
-        return account.getFiatBalance().compareTo(amount) >= 0;
+        return amount != null && amount.signum() > 0 && serviceType != null
+            && (description == null || description.length() <= Transaction.MAX_DESCRIPTION_LENGTH);
     }
 }
-
-
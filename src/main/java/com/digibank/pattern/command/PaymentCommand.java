@@ -1,6 +1,7 @@
 package com.digibank.pattern.command;
 
 import com.digibank.model.Transaction;
+import com.digibank.service.PaymentService;
 
 /**
  * Command Pattern: Encapsulates payment requests as objects
@@ -22,6 +23,13 @@ public interface PaymentCommand {
      * Check if command can be executed
      */
     boolean canExecute();
+
+    /**
+     * Check and debit inside the caller's (batch) transaction, leaving the row for the caller to insert
+     */
+    default PaymentService.StagedPayment stage() {
+        throw new UnsupportedOperationException("Payment cannot be batched");
+    }
 }
 
 
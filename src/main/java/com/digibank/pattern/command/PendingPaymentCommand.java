@@ -0,0 +1,53 @@
+package com.digibank.pattern.command;
+
+import com.digibank.model.Transaction;
+import com.digibank.service.PaymentService;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Concrete Command: completes a payment that was accepted as PENDING
+ * Queued by the payment pipeline and executed on a worker thread
+ */
+public class PendingPaymentCommand implements PaymentCommand {
+    private PaymentService paymentService;
+    private Transaction pending;
+
+    public PendingPaymentCommand(PaymentService paymentService, Transaction pending) {
+        this.paymentService = paymentService;
+        this.pending = pending;
+    }
+
+    public Long getTransactionId() {
+        return pending.getId();
+    }
+
+    @Override
+    public Transaction execute() {
+        return executeAsync().join();
+    }
+
+    /**
+     * Complete the payment without waiting on a crypto gateway; the future ends with the final state
+     */
+    public CompletableFuture<Transaction> executeAsync() {
+        if (!canExecute()) {
+            throw new IllegalStateException("Payment cannot be executed: not pending");
+        }
+        return paymentService.completePendingPayment(pending.getId());
+    }
+
+    @Override
+    public void undo() {
+        if (pending.getPaymentType() == Transaction.PaymentType.FIAT) {
+            paymentService.refundFiatPayment(pending.getUser(), pending.getAmount());
+        } else {
+            paymentService.logRefundAttempt(pending.getUser(), pending.getAmount(), pending.getCryptoNetwork());
+        }
+    }
+
+    @Override
+    public boolean canExecute() {
+        return pending.getId() != null && pending.getStatus() == Transaction.TransactionStatus.PENDING;
+    }
+}
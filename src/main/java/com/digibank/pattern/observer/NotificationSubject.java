@@ -1,45 +1,204 @@
 package com.digibank.pattern.observer;
 
 import com.digibank.model.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Observer Pattern: Subject that notifies all observers
+ * Dispatch happens after the surrounding transaction commits, on a dedicated
+ * bounded queue per observer, so observers never extend a payment transaction.
+ * Security alerts are never dropped: a full alert queue blocks the publisher instead.
  */
 @Component
 public class NotificationSubject {
     private static final Logger log = LoggerFactory.getLogger(NotificationSubject.class);
-    private final List<NotificationObserver> observers = new ArrayList<>();
+    private final List<ObserverChannel> observers = new CopyOnWriteArrayList<>();
+    private final MeterRegistry meterRegistry;
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
 
     @Autowired
     public NotificationSubject(
             EmailNotificationObserver emailObserver,
-            SecurityAlertObserver securityObserver) {
+            SecurityAlertObserver securityObserver,
+            RiskProfileObserver riskProfileObserver,
+            MeterRegistry meterRegistry,
+            @Value("${notification.queue-capacity:1000}") int queueCapacity,
+            @Value("${notification.overflow-policy:DROP_OLDEST}") OverflowPolicy overflowPolicy) {
+        this.meterRegistry = meterRegistry;
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
         registerObserver(emailObserver);
-        registerObserver(securityObserver);
+        registerObserver(securityObserver, OverflowPolicy.BLOCK);
+        registerObserver(riskProfileObserver);
     }
 
     public void registerObserver(NotificationObserver observer) {
-        observers.add(observer);
-        log.debug("Registered observer: {}", observer.getObserverType());
+        registerObserver(observer, overflowPolicy);
+    }
+
+    public void registerObserver(NotificationObserver observer, OverflowPolicy policy) {
+        observers.add(new ObserverChannel(observer, policy));
+        log.debug("Registered observer: {} ({})", observer.getObserverType(), policy);
     }
 
     public void removeObserver(NotificationObserver observer) {
-        observers.remove(observer);
+        for (ObserverChannel channel : observers) {
+            if (channel.observer == observer && observers.remove(channel)) {
+                channel.close();
+            }
+        }
     }
 
+    /**
+     * Inside a transaction, dispatch is deferred until it commits; nothing is published on
+     * rollback, since the transaction's id would not exist. Rejections that must be alerted
+     * are persisted in their own transaction by the caller.
+     */
     public void notifyObservers(Transaction transaction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dispatch(transaction);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatch(transaction);
+            }
+        });
+    }
+
+    private void dispatch(Transaction transaction) {
         log.info("Notifying {} observers about transaction {}", observers.size(), transaction.getId());
-        for (NotificationObserver observer : observers) {
-            observer.update(transaction);
+        for (ObserverChannel channel : observers) {
+            channel.offer(transaction);
         }
     }
-}
 
+    @PreDestroy
+    void shutdown() {
+        observers.forEach(ObserverChannel::close);
+    }
+
+    public enum OverflowPolicy {
+        DROP_NEWEST,  // discard the notification that did not fit
+        DROP_OLDEST,  // discard the oldest queued notification to make room
+        CALLER_RUNS,  // run on the publishing thread (applies backpressure)
+        BLOCK         // wait for room in the queue; nothing is lost and the observer keeps its own thread
+    }
+
+    /**
+     * One observer with its own single worker, bounded queue and metrics
+     */
+    private final class ObserverChannel {
+        private final NotificationObserver observer;
+        private final OverflowPolicy policy;
+        private final ThreadPoolExecutor executor;
+        private final Timer latency;
+        private final Timer duration;
+        private final Counter dropped;
+
+        ObserverChannel(NotificationObserver observer, OverflowPolicy policy) {
+            this.observer = observer;
+            this.policy = policy;
+            String type = observer.getObserverType();
+            this.latency = Timer.builder("notification.observer.latency")
+                .description("Time from publish to observer completion")
+                .tag("observer", type)
+                .register(meterRegistry);
+            this.duration = Timer.builder("notification.observer.duration")
+                .tag("observer", type)
+                .register(meterRegistry);
+            this.dropped = Counter.builder("notification.observer.dropped")
+                .tag("observer", type)
+                .register(meterRegistry);
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "observer-" + type.toLowerCase());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                rejectionHandler());
+            Gauge.builder("notification.observer.queue.depth", executor, e -> e.getQueue().size())
+                .tag("observer", type)
+                .register(meterRegistry);
+        }
+
+        void offer(Transaction transaction) {
+            long published = System.nanoTime();
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    observer.update(transaction);
+                } catch (RuntimeException e) {
+                    log.error("Observer {} failed for transaction {}: {}",
+                        observer.getObserverType(), transaction.getId(), e.getMessage());
+                } finally {
+                    long end = System.nanoTime();
+                    duration.record(end - start, TimeUnit.NANOSECONDS);
+                    latency.record(end - published, TimeUnit.NANOSECONDS);
+                }
+            });
+        }
+
+        void close() {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    log.warn("Observer {} stopped with {} queued notifications",
+                        observer.getObserverType(), executor.getQueue().size());
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+            }
+        }
 
+        private RejectedExecutionHandler rejectionHandler() {
+            RejectedExecutionHandler delegate = switch (policy) {
+                case DROP_NEWEST -> new ThreadPoolExecutor.DiscardPolicy();
+                case DROP_OLDEST -> new ThreadPoolExecutor.DiscardOldestPolicy();
+                case CALLER_RUNS -> new ThreadPoolExecutor.CallerRunsPolicy();
+                case BLOCK -> (runnable, executor) -> {
+                    try {
+                        executor.getQueue().put(runnable);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        dropped.increment();
+                        log.error("Observer {} interrupted while waiting for queue room", observer.getObserverType());
+                    }
+                };
+            };
+            return (runnable, executor) -> {
+                if (executor.isShutdown()) {
+                    return;
+                }
+                if (policy == OverflowPolicy.DROP_NEWEST || policy == OverflowPolicy.DROP_OLDEST) {
+                    dropped.increment();
+                }
+                log.warn("Observer {} queue full, applying {}", observer.getObserverType(), policy);
+                delegate.rejectedExecution(runnable, executor);
+            };
+        }
+    }
+}
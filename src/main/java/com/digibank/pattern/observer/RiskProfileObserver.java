@@ -0,0 +1,26 @@
+package com.digibank.pattern.observer;
+
+import com.digibank.model.Transaction;
+import com.digibank.security.fraud.FraudScoringEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Concrete Observer: feeds committed payments, including the failures
+ * SecurityAlertObserver alerts on, into the fraud scoring profiles
+ */
+@Component
+public class RiskProfileObserver implements NotificationObserver {
+    @Autowired
+    private FraudScoringEngine fraudScoringEngine;
+
+    @Override
+    public void update(Transaction transaction) {
+        fraudScoringEngine.learn(transaction);
+    }
+
+    @Override
+    public String getObserverType() {
+        return "RISK_PROFILE";
+    }
+}
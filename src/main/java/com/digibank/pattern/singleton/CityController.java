@@ -1,10 +1,19 @@
 package com.digibank.pattern.singleton;
 
+import com.digibank.metrics.PaymentMetrics;
+import com.digibank.metrics.RollingWindow;
+import com.digibank.model.Transaction;
+import com.digibank.pattern.adapter.CryptoAdapterFactory;
 import jakarta.annotation.PostConstruct;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Singleton Pattern: Central city controller managing system-wide state
@@ -13,8 +22,16 @@ import java.util.concurrent.atomic.AtomicLong;
 @Component
 public class CityController {
     private static volatile CityController instance;
-    private final AtomicLong totalTransactions = new AtomicLong(0);
-    private final AtomicLong totalRevenue = new AtomicLong(0);
+    // Striped adders: payment threads never contend on a single counter
+    private final PaymentMetrics totals = new PaymentMetrics();
+    private final Map<Transaction.ServiceType, PaymentMetrics> byServiceType = dimension(Transaction.ServiceType.class);
+    private final Map<Transaction.PaymentType, PaymentMetrics> byPaymentType = dimension(Transaction.PaymentType.class);
+    private final Map<String, PaymentMetrics> byNetwork = new ConcurrentHashMap<>();
+    private final Map<String, RollingWindow> windows = Map.of(
+        "1m", new RollingWindow(1_000, 60),
+        "5m", new RollingWindow(5_000, 60),
+        "1h", new RollingWindow(60_000, 60)
+    );
     private LocalDateTime systemStartTime;
     private boolean systemActive = true;
 
@@ -53,20 +70,70 @@ public class CityController {
         return instance;
     }
 
-    public void incrementTransactionCount() {
-        totalTransactions.incrementAndGet();
+    /**
+     * Record a committed payment in the totals, every breakdown and every rolling window
+     */
+    public void recordPayment(Transaction.PaymentType paymentType, Transaction.ServiceType serviceType,
+                              String cryptoNetwork, BigDecimal amount) {
+        long minorUnits = amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        totals.record(minorUnits);
+        byPaymentType.get(paymentType).record(minorUnits);
+        byServiceType.get(serviceType).record(minorUnits);
+        if (cryptoNetwork != null) {
+            byNetwork.computeIfAbsent(CryptoAdapterFactory.canonicalNetwork(cryptoNetwork), network -> new PaymentMetrics())
+                .record(minorUnits);
+        }
+        windows.values().forEach(window -> window.record(1, minorUnits));
     }
 
-    public void addRevenue(long amount) {
-        totalRevenue.addAndGet(amount);
+    public long getTotalTransactions() {
+        return totals.getCount();
     }
 
-    public long getTotalTransactions() {
-        return totalTransactions.get();
+    public BigDecimal getTotalRevenue() {
+        return totals.getAmount();
+    }
+
+    public Map<String, Object> getRevenueByServiceType() {
+        return snapshot(byServiceType);
+    }
+
+    public Map<String, Object> getRevenueByPaymentType() {
+        return snapshot(byPaymentType);
+    }
+
+    public Map<String, Object> getRevenueByNetwork() {
+        return snapshot(byNetwork);
+    }
+
+    /**
+     * Count, revenue and rate over the trailing minute, five minutes and hour
+     */
+    public Map<String, Object> getWindows() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String name : new String[] {"1m", "5m", "1h"}) {
+            RollingWindow window = windows.get(name);
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("count", window.count());
+            values.put("revenue", BigDecimal.valueOf(window.sum(), 2));
+            values.put("perSecond", window.perSecond());
+            result.put(name, values);
+        }
+        return result;
+    }
+
+    private static <K extends Enum<K>> Map<K, PaymentMetrics> dimension(Class<K> type) {
+        Map<K, PaymentMetrics> metrics = new EnumMap<>(type);
+        for (K key : type.getEnumConstants()) {
+            metrics.put(key, new PaymentMetrics());
+        }
+        return metrics;
     }
 
-    public long getTotalRevenue() {
-        return totalRevenue.get();
+    private static Map<String, Object> snapshot(Map<?, PaymentMetrics> metrics) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        metrics.forEach((key, value) -> result.put(key.toString(), value.snapshot()));
+        return result;
     }
 
     public boolean isSystemActive() {
@@ -1,8 +1,14 @@
 package com.digibank.pattern.template;
 
+import com.digibank.model.Transaction;
 import com.digibank.model.User;
+import com.digibank.security.VelocityTracker;
+import com.digibank.security.fraud.FraudScoringEngine;
+import com.digibank.security.fraud.RiskAssessment;
+import com.digibank.service.AuditService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -16,6 +22,15 @@ public class PaymentSecurityCheck extends SecurityCheckTemplate {
     private static final BigDecimal MAX_TRANSACTION_AMOUNT = new BigDecimal("10000");
     private static final BigDecimal MIN_TRANSACTION_AMOUNT = new BigDecimal("0.01");
 
+    @Autowired
+    private VelocityTracker velocityTracker;
+
+    @Autowired
+    private FraudScoringEngine fraudScoringEngine;
+
+    @Autowired
+    private AuditService auditService;
+
     @Override
     protected boolean validateUser(User user) {
         return user != null && user.getUsername() != null && !user.getUsername().isEmpty();
@@ -37,10 +52,29 @@ public class PaymentSecurityCheck extends SecurityCheckTemplate {
     }
 
     @Override
-    protected boolean performCustomChecks(User user, BigDecimal amount) {
-        // Additional checks: rate limiting, suspicious activity, etc.
-        // For now, just check if amount is reasonable
-        log.debug("Performing custom security checks for user: {}", user.getUsername());
+    protected boolean assessRisk(User user, BigDecimal amount, Transaction.PaymentType paymentType,
+                                 Transaction.ServiceType serviceType, String cryptoNetwork) {
+        RiskAssessment assessment = fraudScoringEngine.assess(user.getId(), amount, paymentType, serviceType, cryptoNetwork);
+        RiskAssessment.Action action = fraudScoringEngine.actionFor(assessment.decision());
+        if (action == RiskAssessment.Action.ALLOW) {
+            return true;
+        }
+        String alert = String.format("Risk %s (score %.0f, signals %s) on %s %s payment of %s",
+            assessment.decision(), assessment.score(), assessment.signals(), paymentType, serviceType, amount);
+        log.warn("{} for user {}", alert, user.getUsername());
+        auditService.logSecurityEvent(user.getId(), alert);
+        return action != RiskAssessment.Action.DENY;
+    }
+
+    @Override
+    protected boolean performCustomChecks(User user, BigDecimal amount, Transaction.PaymentType paymentType,
+                                          Transaction.ServiceType serviceType) {
+        // Velocity limits: in-memory sliding windows per user, no database round trip
+        String violation = velocityTracker.checkAndRecord(user.getId(), amount, paymentType, serviceType);
+        if (violation != null) {
+            log.warn("Velocity limit for user {}: {}", user.getUsername(), violation);
+            return false;
+        }
         return true;
     }
 }
@@ -1,5 +1,6 @@
 package com.digibank.pattern.template;
 
+import com.digibank.model.Transaction;
 import com.digibank.model.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,8 +16,10 @@ public abstract class SecurityCheckTemplate {
     /**
      * Template method - defines the algorithm structure
      */
-    public final boolean performSecurityCheck(User user, BigDecimal amount) {
-        log.info("Starting security check for user: {}", user.getUsername());
+    public final boolean performSecurityCheck(User user, BigDecimal amount, Transaction.PaymentType paymentType,
+                                              Transaction.ServiceType serviceType, String cryptoNetwork) {
+        // Runs on every payment: keep the happy path free of INFO logging
+        log.debug("Starting security check for user: {}", user.getUsername());
         
         boolean step1 = validateUser(user);
         if (!step1) {
@@ -36,13 +39,20 @@ public abstract class SecurityCheckTemplate {
             return false;
         }
 
-        boolean step4 = performCustomChecks(user, amount);
+        // Risk scoring only reads state, so it runs before the checks that count the payment
+        boolean step4 = assessRisk(user, amount, paymentType, serviceType, cryptoNetwork);
         if (!step4) {
+            logSecurityFailure("Risk assessment failed", user);
+            return false;
+        }
+
+        boolean step5 = performCustomChecks(user, amount, paymentType, serviceType);
+        if (!step5) {
             logSecurityFailure("Custom security checks failed", user);
             return false;
         }
 
-        log.info("Security check passed for user: {}", user.getUsername());
+        log.debug("Security check passed for user: {}", user.getUsername());
         return true;
     }
 
@@ -50,7 +60,10 @@ public abstract class SecurityCheckTemplate {
     protected abstract boolean validateUser(User user);
     protected abstract boolean checkAccountStatus(User user);
     protected abstract boolean validateAmount(BigDecimal amount);
-    protected abstract boolean performCustomChecks(User user, BigDecimal amount);
+    protected abstract boolean assessRisk(User user, BigDecimal amount, Transaction.PaymentType paymentType,
+                                          Transaction.ServiceType serviceType, String cryptoNetwork);
+    protected abstract boolean performCustomChecks(User user, BigDecimal amount, Transaction.PaymentType paymentType,
+                                                   Transaction.ServiceType serviceType);
 
     // Hook method - can be overridden
     protected void logSecurityFailure(String reason, User user) {
@@ -3,14 +3,54 @@ package com.digibank.repository;
 import com.digibank.model.Account;
 import com.digibank.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.Optional;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
+    // Quoted aliases keep the camel case the projection getters expect
+    String BALANCE = "user_id AS \"userId\", fiat_balance AS \"fiatBalance\", "
+        + "crypto_balance AS \"cryptoBalance\", version AS \"version\"";
+
     Optional<Account> findByUser(User user);
     Optional<Account> findByUserId(Long userId);
-}
 
+    /**
+     * Guarded debit in one round trip: returns the new balances, or empty when funds are insufficient
+     */
+    @Transactional
+    @Query(value = "UPDATE accounts SET fiat_balance = fiat_balance - :amount, version = version + 1, "
+        + "updated_at = LOCALTIMESTAMP WHERE user_id = :userId AND fiat_balance >= :amount "
+        + "RETURNING " + BALANCE, nativeQuery = true)
+    Optional<Balance> debitFiat(Long userId, BigDecimal amount);
+
+    @Transactional
+    @Query(value = "UPDATE accounts SET crypto_balance = crypto_balance - :amount, version = version + 1, "
+        + "updated_at = LOCALTIMESTAMP WHERE user_id = :userId AND crypto_balance >= :amount "
+        + "RETURNING " + BALANCE, nativeQuery = true)
+    Optional<Balance> debitCrypto(Long userId, BigDecimal amount);
 
+    @Transactional
+    @Query(value = "UPDATE accounts SET fiat_balance = fiat_balance + :amount, version = version + 1, "
+        + "updated_at = LOCALTIMESTAMP WHERE user_id = :userId RETURNING " + BALANCE, nativeQuery = true)
+    Optional<Balance> creditFiat(Long userId, BigDecimal amount);
+
+    @Transactional
+    @Query(value = "UPDATE accounts SET crypto_balance = crypto_balance + :amount, version = version + 1, "
+        + "updated_at = LOCALTIMESTAMP WHERE user_id = :userId RETURNING " + BALANCE, nativeQuery = true)
+    Optional<Balance> creditCrypto(Long userId, BigDecimal amount);
+
+    /**
+     * Both balances and the row version as left by a guarded update
+     */
+    interface Balance {
+        Long getUserId();
+        BigDecimal getFiatBalance();
+        BigDecimal getCryptoBalance();
+        Long getVersion();
+    }
+}
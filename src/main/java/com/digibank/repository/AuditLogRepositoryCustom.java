@@ -0,0 +1,30 @@
+package com.digibank.repository;
+
+import com.digibank.dto.KeysetCursor;
+import com.digibank.model.AuditLog;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Audit log reads that must not load the whole table: keyset pages and a cursor-backed stream
+ */
+public interface AuditLogRepositoryCustom {
+
+    /**
+     * Newest first, strictly after the given cursor (null for the first page)
+     */
+    List<AuditLog> findPage(Filter filter, KeysetCursor after, int limit);
+
+    /**
+     * Oldest first, handing each row to the consumer as it is read from a server-side cursor
+     */
+    void streamAll(Filter filter, Consumer<AuditLog> consumer);
+
+    /**
+     * Optional filters; null fields are ignored. The time range is [from, to).
+     */
+    record Filter(AuditLog.AuditEventType eventType, Long userId, LocalDateTime from, LocalDateTime to) {
+    }
+}
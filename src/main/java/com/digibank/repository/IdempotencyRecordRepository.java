@@ -0,0 +1,46 @@
+package com.digibank.repository;
+
+import com.digibank.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Claim a key in one round trip. Returns 1 when this caller owns the key: it was free,
+     * its record had expired, or a previous owner's in-progress lease ran out.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO idempotency_keys (idem_key, request_hash, status, created_at, expires_at) "
+        + "VALUES (:key, :requestHash, 'IN_PROGRESS', :now, :expiresAt) "
+        + "ON CONFLICT (idem_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, status = 'IN_PROGRESS', "
+        + "http_status = NULL, response_body = NULL, created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at "
+        + "WHERE idempotency_keys.expires_at < :now "
+        + "OR (idempotency_keys.status = 'IN_PROGRESS' AND idempotency_keys.created_at < :leaseCutoff)",
+        nativeQuery = true)
+    int claim(String key, String requestHash, Instant now, Instant expiresAt, Instant leaseCutoff);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.status = com.digibank.model.IdempotencyRecord.Status.COMPLETED, "
+        + "r.httpStatus = :httpStatus, r.responseBody = :responseBody WHERE r.idemKey = :key")
+    int complete(String key, int httpStatus, String responseBody);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idemKey = :key "
+        + "AND r.status = com.digibank.model.IdempotencyRecord.Status.IN_PROGRESS")
+    int release(String key);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(Instant now);
+}
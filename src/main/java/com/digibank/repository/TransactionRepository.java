@@ -1,17 +1,98 @@
 package com.digibank.repository;
 
+import com.digibank.dto.TransactionSummary;
 import com.digibank.model.Transaction;
 import com.digibank.model.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionRepositoryCustom {
     List<Transaction> findByUser(User user);
     List<Transaction> findByUserId(Long userId);
     List<Transaction> findByStatus(Transaction.TransactionStatus status);
+    Optional<Transaction> findByIdempotencyKey(String idempotencyKey);
+    List<Transaction> findByStatusAndTransactionHashIsNullAndSubmittedAtIsNull(Transaction.TransactionStatus status);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Transaction> findWithLockById(Long id);
+
+    String SUMMARY = "SELECT new com.digibank.dto.TransactionSummary(t.id, t.reference, t.user.id, t.paymentType, "
+        + "t.serviceType, t.amount, t.status, t.cryptoNetwork, t.transactionHash, t.timestamp, t.description) "
+        + "FROM Transaction t ";
+
+    /**
+     * First page of a user's history, newest first
+     */
+    @Query(SUMMARY + "WHERE t.user.id = :userId ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionSummary> findHistory(@Param("userId") Long userId, Pageable page);
+
+    /**
+     * Next page of a user's history: rows strictly before the (timestamp, id) cursor
+     */
+    @Query(SUMMARY + "WHERE t.user.id = :userId AND (t.timestamp < :timestamp "
+        + "OR (t.timestamp = :timestamp AND t.id < :id)) ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionSummary> findHistoryBefore(@Param("userId") Long userId,
+                                               @Param("timestamp") LocalDateTime timestamp,
+                                               @Param("id") Long id,
+                                               Pageable page);
+
+    @Query(SUMMARY + "WHERE t.id = :id")
+    Optional<TransactionSummary> findSummaryById(@Param("id") Long id);
+
+    /**
+     * Submitted crypto transactions still waiting for on-chain confirmation, in id order after a cursor
+     */
+    @Query("SELECT t.id AS id, t.transactionHash AS transactionHash, t.timestamp AS timestamp FROM Transaction t "
+        + "WHERE t.status = :status AND t.transactionHash IS NOT NULL AND UPPER(t.cryptoNetwork) IN :networks "
+        + "AND t.id > :afterId ORDER BY t.id")
+    List<AwaitingConfirmation> findAwaitingConfirmation(@Param("status") Transaction.TransactionStatus status,
+                                                        @Param("networks") Collection<String> networks,
+                                                        @Param("afterId") Long afterId,
+                                                        Pageable page);
+
+    /**
+     * Bulk PENDING to COMPLETED; returns only the ids this call actually moved
+     */
+    @Transactional
+    @Query(value = "UPDATE transactions SET status = 'COMPLETED', funds_reserved = false "
+        + "WHERE id IN (:ids) AND status = 'PENDING' RETURNING id", nativeQuery = true)
+    List<Long> markConfirmed(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Claim a reserved payment for its gateway call; 0 when another worker already submitted it
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE transactions SET submitted_at = :now WHERE id = :id AND status = 'PENDING' "
+        + "AND funds_reserved AND submitted_at IS NULL", nativeQuery = true)
+    int markSubmitted(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Reserved payments whose gateway call never answered with a hash
+     */
+    @Query("SELECT t.id FROM Transaction t WHERE t.status = :status AND t.fundsReserved = true "
+        + "AND t.transactionHash IS NULL AND t.submittedAt < :cutoff")
+    List<Long> findUnanswered(@Param("status") Transaction.TransactionStatus status,
+                              @Param("cutoff") LocalDateTime cutoff);
+
+    interface AwaitingConfirmation {
+        Long getId();
+        String getTransactionHash();
+        LocalDateTime getTimestamp();
+    }
 }
 
 
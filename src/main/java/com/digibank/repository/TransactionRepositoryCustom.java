@@ -0,0 +1,25 @@
+package com.digibank.repository;
+
+import com.digibank.dto.TransactionSummary;
+import com.digibank.model.Transaction;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Statement reads that stream a user's whole history without materialising it
+ */
+public interface TransactionRepositoryCustom {
+
+    /**
+     * Oldest first, handing each row to the consumer as it is read from a server-side cursor.
+     * The consumer runs while the cursor is open, so a slow consumer slows the read.
+     */
+    void streamStatement(Long userId, StatementFilter filter, Consumer<TransactionSummary> consumer);
+
+    /**
+     * Optional filters; null fields are ignored. The time range is [from, to).
+     */
+    record StatementFilter(LocalDateTime from, LocalDateTime to, Transaction.ServiceType serviceType) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.digibank.repository;
+
+import com.digibank.dto.TransactionSummary;
+import com.digibank.model.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * JDBC implementation of {@link TransactionRepositoryCustom}: a forward-only PostgreSQL
+ * cursor with a bounded fetch size, read inside a read-only transaction
+ */
+public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
+    private static final String COLUMNS = "SELECT id, reference, user_id, payment_type, service_type, amount, status, "
+        + "crypto_network, transaction_hash, timestamp, description FROM transactions WHERE user_id = ?";
+
+    private final JdbcTemplate streamingTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Autowired
+    public TransactionRepositoryImpl(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                     @Value("${statement.export.fetch-size:500}") int fetchSize) {
+        this.streamingTemplate = new JdbcTemplate(dataSource);
+        this.streamingTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public void streamStatement(Long userId, StatementFilter filter, Consumer<TransactionSummary> consumer) {
+        List<Object> args = new ArrayList<>();
+        args.add(userId);
+        StringBuilder sql = new StringBuilder(COLUMNS);
+        if (filter.from() != null) {
+            sql.append(" AND timestamp >= ?");
+            args.add(Timestamp.valueOf(filter.from()));
+        }
+        if (filter.to() != null) {
+            sql.append(" AND timestamp < ?");
+            args.add(Timestamp.valueOf(filter.to()));
+        }
+        if (filter.serviceType() != null) {
+            sql.append(" AND service_type = ?");
+            args.add(filter.serviceType().name());
+        }
+        // Served by the (user_id, timestamp, id) index
+        sql.append(" ORDER BY timestamp, id");
+
+        // PostgreSQL only honours the fetch size with autocommit off, i.e. inside a transaction
+        readOnlyTransaction.executeWithoutResult(status -> streamingTemplate.query(sql.toString(),
+            (RowCallbackHandler) rs -> consumer.accept(new TransactionSummary(
+                rs.getLong("id"),
+                rs.getString("reference"),
+                rs.getLong("user_id"),
+                Transaction.PaymentType.valueOf(rs.getString("payment_type")),
+                Transaction.ServiceType.valueOf(rs.getString("service_type")),
+                rs.getBigDecimal("amount"),
+                Transaction.TransactionStatus.valueOf(rs.getString("status")),
+                rs.getString("crypto_network"),
+                rs.getString("transaction_hash"),
+                rs.getTimestamp("timestamp").toLocalDateTime(),
+                rs.getString("description"))),
+            args.toArray()));
+    }
+}
@@ -0,0 +1,60 @@
+package com.digibank.repository;
+
+import com.digibank.dto.SpendingTotal;
+import com.digibank.model.UserDailySpend;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UserDailySpendRepository extends JpaRepository<UserDailySpend, UserDailySpend.Key> {
+    // Advisory lock key: shared by payments adding to a day, exclusive while a rebuild rewrites days
+    String REBUILD_LOCK = "digibank.spending-rebuild";
+
+    /**
+     * Add one completed payment to its day; runs in the payment's transaction. Takes the rebuild
+     * lock in shared mode in the same statement, so a rebuild never snapshots around an
+     * uncommitted add and then overwrites it.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_daily_spend (user_id, day, service_type, payment_type, tx_count, total_amount, max_amount) "
+        + "SELECT :userId, :day, :serviceType, :paymentType, 1, :amount, :amount "
+        + "FROM (SELECT pg_advisory_xact_lock_shared(hashtext('" + REBUILD_LOCK + "'))) rebuild_lock "
+        + "ON CONFLICT (user_id, day, service_type, payment_type) DO UPDATE SET "
+        + "tx_count = user_daily_spend.tx_count + 1, "
+        + "total_amount = user_daily_spend.total_amount + EXCLUDED.total_amount, "
+        + "max_amount = GREATEST(user_daily_spend.max_amount, EXCLUDED.max_amount)",
+        nativeQuery = true)
+    int add(Long userId, LocalDate day, String serviceType, String paymentType, BigDecimal amount);
+
+    /**
+     * Totals over [from, to), reading one row per day and category instead of every transaction
+     */
+    @Query("SELECT new com.digibank.dto.SpendingTotal(s.serviceType, s.paymentType, SUM(s.txCount), "
+        + "SUM(s.totalAmount), MAX(s.maxAmount)) FROM UserDailySpend s "
+        + "WHERE s.userId = :userId AND s.day >= :from AND s.day < :to "
+        + "GROUP BY s.serviceType, s.paymentType ORDER BY SUM(s.totalAmount) DESC")
+    List<SpendingTotal> summarize(Long userId, LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_daily_spend WHERE day >= :from AND day < :to", nativeQuery = true)
+    int deleteDays(LocalDate from, LocalDate to);
+
+    /**
+     * Recompute [from, to) from completed transactions; call after {@link #deleteDays} while holding
+     * the rebuild lock exclusively, so no payment can add to these days in between
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_daily_spend (user_id, day, service_type, payment_type, tx_count, total_amount, max_amount) "
+        + "SELECT user_id, CAST(timestamp AS date), service_type, payment_type, COUNT(*), SUM(amount), MAX(amount) "
+        + "FROM transactions WHERE status = 'COMPLETED' AND timestamp >= :from AND timestamp < :to "
+        + "GROUP BY user_id, CAST(timestamp AS date), service_type, payment_type",
+        nativeQuery = true)
+    int rebuildDays(LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,127 @@
+package com.digibank.security;
+
+import com.digibank.dto.ApiResponse;
+import com.digibank.metrics.PaymentStageTimer;
+import com.digibank.model.User;
+import com.digibank.service.AuthService;
+import com.digibank.service.JwtService;
+import com.digibank.service.TokenRevocationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Central authentication filter: verifies the bearer token once per request
+ * and exposes the resolved user to controllers via {@link CurrentUser}
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+    public static final String PRINCIPAL_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".PRINCIPAL";
+    public static final String TOKEN_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".TOKEN";
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final Set<String> PUBLIC_PATHS = Set.of("/api/auth/login", "/api/auth/register");
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private VerifiedTokenCache tokenCache;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private TokenRevocationService revocationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PaymentStageTimer stageTimer;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (HttpMethod.OPTIONS.matches(request.getMethod())) {
+            return true;
+        }
+        String path = request.getServletPath();
+        return !path.startsWith("/api/") || PUBLIC_PATHS.contains(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || header.isBlank()) {
+            reject(response, "Missing authorization token");
+            return;
+        }
+        String token = header.startsWith(BEARER_PREFIX) ? header.substring(BEARER_PREFIX.length()) : header;
+
+        // Authentication stages are timed alongside the payment stages for payment requests
+        boolean payment = request.getServletPath().startsWith("/api/pay/");
+        User user;
+        long start = System.nanoTime();
+        String stage = "token_validation";
+        String outcome = "invalid";
+        try {
+            VerifiedToken verified = tokenCache.get(token, jwtService::verify);
+            if (revocationService.isRevoked(verified)) {
+                outcome = "revoked";
+                reject(response, "Token has been revoked");
+                return;
+            }
+            recordStage(payment, stage, "success", start);
+            stage = "account_load";
+            start = System.nanoTime();
+            outcome = "error";
+            user = authService.loadPrincipal(verified);
+            outcome = "success";
+            request.setAttribute(TOKEN_ATTRIBUTE, verified);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected token: {}", e.getMessage());
+            reject(response, "Invalid token");
+            return;
+        } catch (RuntimeException e) {
+            log.warn("Token principal resolution failed: {}", e.getMessage());
+            reject(response, "Invalid token");
+            return;
+        } finally {
+            recordStage(payment, stage, outcome, start);
+        }
+
+        request.setAttribute(PRINCIPAL_ATTRIBUTE, user);
+        filterChain.doFilter(request, response);
+    }
+
+    private void recordStage(boolean payment, String stage, String outcome, long start) {
+        if (payment) {
+            stageTimer.recordStage(stage, PaymentStageTimer.NONE, PaymentStageTimer.NONE, outcome, System.nanoTime() - start);
+        }
+    }
+
+    private void reject(HttpServletResponse response, String message) throws IOException {
+        response.setStatus(HttpStatus.UNAUTHORIZED.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error(message));
+    }
+}
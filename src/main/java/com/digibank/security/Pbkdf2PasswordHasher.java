@@ -0,0 +1,104 @@
+package com.digibank.security;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * PBKDF2-HMAC-SHA256 password hashing with a tunable iteration count.
+ * Encoded form: {@code $pbkdf2-sha256$<iterations>$<salt>$<hash>}
+ */
+public class Pbkdf2PasswordHasher {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "$pbkdf2-sha256$";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final SecureRandom random = new SecureRandom();
+    private final int iterations;
+    private final int rehashBelow;
+
+    public Pbkdf2PasswordHasher(int iterations) {
+        this(iterations, iterations);
+    }
+
+    /**
+     * @param rehashBelow stored hashes with fewer iterations are upgraded; must not exceed iterations
+     */
+    public Pbkdf2PasswordHasher(int iterations, int rehashBelow) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iterations must be positive");
+        }
+        if (rehashBelow > iterations) {
+            throw new IllegalArgumentException("Rehash floor exceeds iterations");
+        }
+        this.iterations = iterations;
+        this.rehashBelow = rehashBelow;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = derive(password, salt, iterations);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    /**
+     * Constant-time check of a password against an encoded hash.
+     * Values without the PBKDF2 prefix are treated as legacy plaintext.
+     */
+    public boolean matches(String password, String encoded) {
+        if (password == null || encoded == null) {
+            return false;
+        }
+        if (!isEncoded(encoded)) {
+            return MessageDigest.isEqual(
+                password.getBytes(StandardCharsets.UTF_8), encoded.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = encoded.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) {
+            return false;
+        }
+        Base64.Decoder decoder = Base64.getDecoder();
+        byte[] expected = decoder.decode(parts[2]);
+        byte[] actual = derive(password, decoder.decode(parts[1]), Integer.parseInt(parts[0]));
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    /**
+     * True when the stored value is plaintext or was hashed with fewer iterations than the floor.
+     * Higher counts are kept, so nodes calibrated to different costs do not rehash each other's hashes.
+     */
+    public boolean needsRehash(String encoded) {
+        if (!isEncoded(encoded)) {
+            return true;
+        }
+        String rest = encoded.substring(PREFIX.length());
+        int end = rest.indexOf('$');
+        return end < 0 || Integer.parseInt(rest.substring(0, end)) < rehashBelow;
+    }
+
+    private static boolean isEncoded(String encoded) {
+        return encoded != null && encoded.startsWith(PREFIX);
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
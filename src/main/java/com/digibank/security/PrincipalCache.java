@@ -0,0 +1,60 @@
+package com.digibank.security;
+
+import com.digibank.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-evicting cache of authenticated user principals keyed by username.
+ * Every write to a user must go through {@link #put} or {@link #invalidate} so that
+ * role changes and re-registrations are never served stale. Usernames never change once
+ * registered, so a put under the username replaces the only entry a user can have.
+ */
+@Component
+public class PrincipalCache {
+    private final Cache<String, User> cache;
+
+    public PrincipalCache(@Value("${auth.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${auth.principal-cache.ttl-seconds:300}") long ttlSeconds,
+                          MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "principals");
+    }
+
+    public User get(String username, Function<String, User> loader) {
+        return cache.get(username, loader);
+    }
+
+    public void put(User user) {
+        cache.put(user.getUsername(), user);
+    }
+
+    public void invalidate(String username) {
+        cache.invalidate(username);
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+}
@@ -0,0 +1,207 @@
+package com.digibank.security;
+
+import com.digibank.model.Transaction;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-user payment velocity over sliding windows: payments per minute, amount per hour and
+ * distinct service types per hour. Each payment type has its own hourly amount and limit;
+ * crypto is counted to 8 decimal places. State lives in memory only (no queries on the payment
+ * path), in a bounded cache that drops users idle for longer than the longest window.
+ * Counts cover attempts that passed the check, whether or not the payment later succeeded.
+ */
+@Component
+public class VelocityTracker {
+    private static final int MINUTE_BUCKETS = 6;
+    private static final long MINUTE_BUCKET_MILLIS = 10_000;
+    private static final int HOUR_BUCKETS = 12;
+    private static final long HOUR_BUCKET_MILLIS = 300_000;
+    // Field offsets within a bucket of each ring; offset 0 is the bucket's period stamp
+    private static final int MINUTE_COUNT = 1;
+    private static final int MINUTE_STRIDE = 2;
+    private static final int HOUR_FIAT_AMOUNT = 1;
+    private static final int HOUR_CRYPTO_AMOUNT = 2;
+    private static final int HOUR_SERVICES = 3;
+    private static final int HOUR_STRIDE = 4;
+    private static final int FIAT_SCALE = 2;
+    private static final int CRYPTO_SCALE = 8;
+
+    private final Cache<Long, UserVelocity> users;
+    private final long maxPaymentsPerMinute;
+    private final long maxFiatPerHourMinor;
+    private final long maxCryptoPerHourMinor;
+    private final int maxServicesPerHour;
+    private final Counter denied;
+    private final LongSupplier clock;
+
+    @Autowired
+    public VelocityTracker(@Value("${security.velocity.max-payments-per-minute:10}") long maxPaymentsPerMinute,
+                           @Value("${security.velocity.max-fiat-per-hour:5000}") BigDecimal maxFiatPerHour,
+                           @Value("${security.velocity.max-crypto-per-hour:10}") BigDecimal maxCryptoPerHour,
+                           @Value("${security.velocity.max-services-per-hour:3}") int maxServicesPerHour,
+                           @Value("${security.velocity.max-users:100000}") long maxUsers,
+                           @Value("${security.velocity.idle-minutes:60}") long idleMinutes,
+                           MeterRegistry meterRegistry) {
+        this(maxPaymentsPerMinute, maxFiatPerHour, maxCryptoPerHour, maxServicesPerHour, maxUsers, idleMinutes,
+            meterRegistry, System::currentTimeMillis);
+    }
+
+    VelocityTracker(long maxPaymentsPerMinute, BigDecimal maxFiatPerHour, BigDecimal maxCryptoPerHour,
+                    int maxServicesPerHour, long maxUsers, long idleMinutes, MeterRegistry meterRegistry,
+                    LongSupplier clock) {
+        this.clock = clock;
+        this.maxPaymentsPerMinute = maxPaymentsPerMinute;
+        this.maxFiatPerHourMinor = minorUnits(maxFiatPerHour, FIAT_SCALE);
+        this.maxCryptoPerHourMinor = minorUnits(maxCryptoPerHour, CRYPTO_SCALE);
+        this.maxServicesPerHour = maxServicesPerHour;
+        this.users = Caffeine.newBuilder()
+            .maximumSize(maxUsers)
+            .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+            .recordStats()
+            .build();
+        this.denied = meterRegistry.counter("security.velocity.denied");
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "velocity");
+    }
+
+    /**
+     * Count the payment against the user's windows. Returns the limit it would break,
+     * in which case nothing is counted, or null when it is within every limit.
+     */
+    public String checkAndRecord(Long userId, BigDecimal amount, Transaction.PaymentType paymentType,
+                                 Transaction.ServiceType serviceType) {
+        UserVelocity velocity = users.get(userId, id -> new UserVelocity());
+        long now = clock.getAsLong();
+        boolean crypto = paymentType == Transaction.PaymentType.CRYPTO;
+        int amountField = crypto ? HOUR_CRYPTO_AMOUNT : HOUR_FIAT_AMOUNT;
+        long amountMinor = minorUnits(amount, crypto ? CRYPTO_SCALE : FIAT_SCALE);
+        long serviceBit = serviceType != null ? 1L << serviceType.ordinal() : 0;
+
+        // Services are checked before anything is added: a bit set by another payment cannot be undone
+        if (Long.bitCount(velocity.hour.or(now, HOUR_SERVICES) | serviceBit) > maxServicesPerHour) {
+            denied.increment();
+            return "too many service types per hour";
+        }
+        // Counters are reserved first and given back on denial, so racing payments cannot both slip under a limit
+        long minuteSlot = velocity.minute.add(now, MINUTE_COUNT, 1);
+        if (velocity.minute.sum(now, MINUTE_COUNT) > maxPaymentsPerMinute) {
+            velocity.minute.undo(minuteSlot, MINUTE_COUNT, 1);
+            denied.increment();
+            return "too many payments per minute";
+        }
+        long hourSlot = velocity.hour.add(now, amountField, amountMinor);
+        if (velocity.hour.sum(now, amountField) > (crypto ? maxCryptoPerHourMinor : maxFiatPerHourMinor)) {
+            velocity.hour.undo(hourSlot, amountField, amountMinor);
+            velocity.minute.undo(minuteSlot, MINUTE_COUNT, 1);
+            denied.increment();
+            return crypto ? "hourly crypto amount limit exceeded" : "hourly fiat amount limit exceeded";
+        }
+        velocity.hour.or(now, HOUR_SERVICES, serviceBit);
+        return null;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("trackedUsers", users.estimatedSize());
+        result.put("evictions", users.stats().evictionCount());
+        result.put("denied", (long) denied.count());
+        return result;
+    }
+
+    // Rounded up, so no positive amount counts as zero
+    private static long minorUnits(BigDecimal amount, int scale) {
+        return amount.setScale(scale, RoundingMode.UP).unscaledValue().longValueExact();
+    }
+
+    private static final class UserVelocity {
+        // Minute window: [stamp, count] per bucket; hour window: [stamp, fiat amount, crypto amount, service bitmask]
+        final Ring minute = new Ring(MINUTE_BUCKETS, MINUTE_BUCKET_MILLIS, MINUTE_STRIDE);
+        final Ring hour = new Ring(HOUR_BUCKETS, HOUR_BUCKET_MILLIS, HOUR_STRIDE);
+    }
+
+    /**
+     * Ring of time buckets packed into one AtomicLongArray, each bucket being a period stamp
+     * followed by its fields. As in RollingWindow, the first writer of a new period resets the
+     * bucket, so values written at that instant may be lost.
+     */
+    private static final class Ring {
+        private final int buckets;
+        private final long bucketMillis;
+        private final int stride;
+        private final AtomicLongArray data;
+
+        Ring(int buckets, long bucketMillis, int stride) {
+            this.buckets = buckets;
+            this.bucketMillis = bucketMillis;
+            this.stride = stride;
+            this.data = new AtomicLongArray(buckets * stride);
+        }
+
+        // Returns the period written to, so the caller can undo it
+        long add(long now, int field, long delta) {
+            long period = now / bucketMillis;
+            data.addAndGet(current(period) + field, delta);
+            return period;
+        }
+
+        void or(long now, int field, long bits) {
+            long period = now / bucketMillis;
+            data.getAndAccumulate(current(period) + field, bits, (a, b) -> a | b);
+        }
+
+        // Only undone while the bucket still belongs to that period
+        void undo(long period, int field, long delta) {
+            int base = (int) (period % buckets) * stride;
+            if (data.get(base) == period) {
+                data.addAndGet(base + field, -delta);
+            }
+        }
+
+        long sum(long now, int field) {
+            long period = now / bucketMillis;
+            long total = 0;
+            for (int base = 0; base < data.length(); base += stride) {
+                if (period - data.get(base) < buckets) {
+                    total += data.get(base + field);
+                }
+            }
+            return total;
+        }
+
+        long or(long now, int field) {
+            long period = now / bucketMillis;
+            long bits = 0;
+            for (int base = 0; base < data.length(); base += stride) {
+                if (period - data.get(base) < buckets) {
+                    bits |= data.get(base + field);
+                }
+            }
+            return bits;
+        }
+
+        private int current(long period) {
+            int base = (int) (period % buckets) * stride;
+            long stamp = data.get(base);
+            if (stamp != period && data.compareAndSet(base, stamp, period)) {
+                for (int field = 1; field < stride; field++) {
+                    data.set(base + field, 0);
+                }
+            }
+            return base;
+        }
+    }
+}
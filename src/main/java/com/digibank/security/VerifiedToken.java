@@ -0,0 +1,26 @@
+package com.digibank.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+
+/**
+ * Immutable view of the claims of a token whose signature has been checked
+ */
+public record VerifiedToken(String id, String username, Long userId, String role, Instant expiresAt) {
+
+    public static VerifiedToken from(Claims claims) {
+        Number userId = claims.get("userId", Number.class);
+        return new VerifiedToken(
+            claims.getId(),
+            claims.getSubject(),
+            userId != null ? userId.longValue() : null,
+            claims.get("role", String.class),
+            claims.getExpiration().toInstant()
+        );
+    }
+
+    public boolean isExpired() {
+        return !Instant.now().isBefore(expiresAt);
+    }
+}
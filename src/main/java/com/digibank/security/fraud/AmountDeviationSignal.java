@@ -0,0 +1,45 @@
+package com.digibank.security.fraud;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Amount far above the user's usual spend, measured in EWMA standard deviations against
+ * payments of the same type only
+ */
+@Component
+public class AmountDeviationSignal implements RiskSignal {
+    @Value("${fraud.weights.amount-deviation:40}")
+    private double weight;
+
+    @Value("${fraud.min-history:5}")
+    private int minHistory;
+
+    // Deviations below the first bound score 0, above the second score 1
+    @Value("${fraud.amount-deviation.from-sigma:3}")
+    private double fromSigma;
+
+    @Value("${fraud.amount-deviation.to-sigma:8}")
+    private double toSigma;
+
+    @Override
+    public String name() {
+        return "amount_deviation";
+    }
+
+    @Override
+    public double weight() {
+        return weight;
+    }
+
+    @Override
+    public double evaluate(RiskContext context, RiskProfile profile) {
+        if (profile.amountSamples() < minHistory || context.amount() <= profile.meanAmount()) {
+            return 0;
+        }
+        // Floor the deviation at 10% of the mean so users with very regular amounts are not flagged for cents
+        double stdDev = Math.max(profile.stdDevAmount(), profile.meanAmount() * 0.1);
+        double sigma = (context.amount() - profile.meanAmount()) / Math.max(stdDev, 0.01);
+        return Math.min(1, Math.max(0, (sigma - fromSigma) / (toSigma - fromSigma)));
+    }
+}
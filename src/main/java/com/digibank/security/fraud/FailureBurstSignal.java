@@ -0,0 +1,32 @@
+package com.digibank.security.fraud;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Several failed payments in the recent failure window (card testing, drained balance probing)
+ */
+@Component
+public class FailureBurstSignal implements RiskSignal {
+    @Value("${fraud.weights.failure-burst:40}")
+    private double weight;
+
+    @Value("${fraud.failure-burst:3}")
+    private int burst;
+
+    @Override
+    public String name() {
+        return "failure_burst";
+    }
+
+    @Override
+    public double weight() {
+        return weight;
+    }
+
+    @Override
+    public double evaluate(RiskContext context, RiskProfile profile) {
+        // Ramps up to full strength at the burst size
+        return Math.min(1, (double) profile.recentFailures() / burst);
+    }
+}
@@ -0,0 +1,150 @@
+package com.digibank.security.fraud;
+
+import com.digibank.model.Transaction;
+import com.digibank.pattern.adapter.CryptoAdapterFactory;
+import com.digibank.pattern.adapter.CryptoAdapterRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scores payments from 0 to 100 by summing weighted {@link RiskSignal}s against the user's
+ * in-memory profile, and maps the score to allow, review or block. Profiles are learnt from
+ * committed outcomes (see RiskProfileObserver), never read from the database on the payment path.
+ */
+@Component
+public class FraudScoringEngine {
+    private static final Logger log = LoggerFactory.getLogger(FraudScoringEngine.class);
+
+    private final List<RiskSignal> signals;
+    private final List<String> networks;
+    private final RiskProfileTable profiles;
+    private final double alpha;
+    private final double reviewScore;
+    private final double blockScore;
+    private final RiskAssessment.Action reviewAction;
+    private final RiskAssessment.Action blockAction;
+    private final int idleDays;
+    private final Map<RiskAssessment.Decision, Counter> decisions = new EnumMap<>(RiskAssessment.Decision.class);
+    private final Counter untracked;
+
+    public FraudScoringEngine(List<RiskSignal> signals,
+                              CryptoAdapterRegistry cryptoAdapters,
+                              MeterRegistry meterRegistry,
+                              @Value("${fraud.max-users:2000000}") int maxUsers,
+                              @Value("${fraud.failure-window-minutes:10}") int failureWindowMinutes,
+                              @Value("${fraud.ewma-alpha:0.1}") double alpha,
+                              @Value("${fraud.review-score:50}") double reviewScore,
+                              @Value("${fraud.block-score:80}") double blockScore,
+                              @Value("${fraud.review-action:FLAG}") RiskAssessment.Action reviewAction,
+                              @Value("${fraud.block-action:DENY}") RiskAssessment.Action blockAction,
+                              @Value("${fraud.idle-days:90}") int idleDays) {
+        this.signals = List.copyOf(signals);
+        this.networks = cryptoAdapters.networks();
+        this.profiles = new RiskProfileTable(maxUsers, failureWindowMinutes);
+        this.alpha = alpha;
+        this.reviewScore = reviewScore;
+        this.blockScore = blockScore;
+        this.reviewAction = reviewAction;
+        this.blockAction = blockAction;
+        this.idleDays = idleDays;
+        for (RiskAssessment.Decision decision : RiskAssessment.Decision.values()) {
+            decisions.put(decision, meterRegistry.counter("fraud.decisions", "decision", decision.name().toLowerCase()));
+        }
+        this.untracked = meterRegistry.counter("fraud.untracked");
+        meterRegistry.gauge("fraud.profiles", profiles, RiskProfileTable::size);
+        log.info("Fraud scoring with signals {}", this.signals.stream().map(RiskSignal::name).toList());
+    }
+
+    public RiskAssessment assess(Long userId, BigDecimal amount, Transaction.PaymentType paymentType,
+                                 Transaction.ServiceType serviceType, String cryptoNetwork) {
+        LocalDateTime now = LocalDateTime.now();
+        RiskContext context = new RiskContext(userId, amount.doubleValue(), paymentType, serviceType,
+            cryptoNetwork, networkBit(cryptoNetwork), now.getHour());
+        RiskProfile profile = profiles.get(userId, paymentType.ordinal(), epochMinute());
+
+        double score = 0;
+        List<String> fired = new ArrayList<>(2);
+        for (RiskSignal signal : signals) {
+            double strength = signal.evaluate(context, profile);
+            if (strength > 0) {
+                score += strength * signal.weight();
+                fired.add(signal.name());
+            }
+        }
+        score = Math.min(100, score);
+        RiskAssessment.Decision decision = score >= blockScore ? RiskAssessment.Decision.BLOCK
+            : score >= reviewScore ? RiskAssessment.Decision.REVIEW
+            : RiskAssessment.Decision.ALLOW;
+        decisions.get(decision).increment();
+        return new RiskAssessment(score, decision, fired);
+    }
+
+    public RiskAssessment.Action actionFor(RiskAssessment.Decision decision) {
+        return switch (decision) {
+            case ALLOW -> RiskAssessment.Action.ALLOW;
+            case REVIEW -> reviewAction;
+            case BLOCK -> blockAction;
+        };
+    }
+
+    /**
+     * Learn from a committed payment: completed ones shape the profile, failed ones count towards a burst
+     */
+    public void learn(Transaction transaction) {
+        long userId = transaction.getUser().getId();
+        boolean tracked = switch (transaction.getStatus()) {
+            case COMPLETED -> profiles.learn(userId, transaction.getPaymentType().ordinal(),
+                transaction.getAmount().doubleValue(), transaction.getTimestamp().getHour(),
+                networkBit(transaction.getCryptoNetwork()), epochMinute(), alpha);
+            case FAILED -> profiles.recordFailure(userId, epochMinute());
+            default -> true;
+        };
+        if (!tracked) {
+            untracked.increment();
+        }
+    }
+
+    @Scheduled(cron = "${fraud.evict-cron:0 15 4 * * *}")
+    public void evictIdle() {
+        int evicted = profiles.evictIdle(epochMinute() - (int) TimeUnit.DAYS.toMinutes(idleDays));
+        if (evicted > 0) {
+            log.info("Evicted {} idle risk profiles", evicted);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("profiles", profiles.size());
+        result.put("capacity", profiles.capacity());
+        result.put("untracked", (long) untracked.count());
+        decisions.forEach((decision, counter) -> result.put(decision.name().toLowerCase(), (long) counter.count()));
+        return result;
+    }
+
+    // Bit of the canonical network in the profile's network mask; 0 for fiat
+    private int networkBit(String cryptoNetwork) {
+        if (cryptoNetwork == null) {
+            return 0;
+        }
+        int index = networks.indexOf(CryptoAdapterFactory.canonicalNetwork(cryptoNetwork));
+        return index >= 0 && index < 8 ? 1 << index : 0;
+    }
+
+    private static int epochMinute() {
+        return (int) TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,32 @@
+package com.digibank.security.fraud;
+
+import com.digibank.model.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Crypto payment on a network the user has never paid on before
+ */
+@Component
+public class NewNetworkSignal implements RiskSignal {
+    @Value("${fraud.weights.new-network:25}")
+    private double weight;
+
+    @Override
+    public String name() {
+        return "new_network";
+    }
+
+    @Override
+    public double weight() {
+        return weight;
+    }
+
+    @Override
+    public double evaluate(RiskContext context, RiskProfile profile) {
+        if (context.paymentType() != Transaction.PaymentType.CRYPTO || profile.payments() == 0) {
+            return 0;
+        }
+        return (profile.networkMask() & context.networkBit()) == 0 ? 1 : 0;
+    }
+}
@@ -0,0 +1,22 @@
+package com.digibank.security.fraud;
+
+import java.util.List;
+
+/**
+ * Score of one payment and the signals that contributed to it
+ */
+public record RiskAssessment(double score, Decision decision, List<String> signals) {
+
+    public enum Decision {
+        ALLOW, REVIEW, BLOCK
+    }
+
+    /**
+     * What to do with a payment that reached the review or block score
+     */
+    public enum Action {
+        ALLOW,  // ignore the decision
+        FLAG,   // let the payment through and raise a security alert
+        DENY    // fail the security check and raise a security alert
+    }
+}
@@ -0,0 +1,12 @@
+package com.digibank.security.fraud;
+
+import com.digibank.model.Transaction;
+
+/**
+ * The payment being scored
+ *
+ * @param networkBit bit of the payment's crypto network in {@link RiskProfile#networkMask}, 0 for fiat
+ */
+public record RiskContext(long userId, double amount, Transaction.PaymentType paymentType,
+                          Transaction.ServiceType serviceType, String cryptoNetwork, int networkBit, int hour) {
+}
@@ -0,0 +1,22 @@
+package com.digibank.security.fraud;
+
+/**
+ * What is known about a user's past payments when a new one is scored
+ *
+ * @param payments     completed payments seen (saturates at 65535)
+ * @param amountSamples completed payments of the scored payment type, which the amount statistics cover
+ * @param meanAmount   exponentially weighted mean amount for the scored payment type
+ * @param stdDevAmount exponentially weighted standard deviation of that amount
+ * @param hourProfile  2-bit activity level per hour of day, hour h at bits 2h..2h+1
+ * @param networkMask  one bit per crypto network the user has paid on
+ * @param recentFailures failed payments in the current failure window
+ */
+public record RiskProfile(int payments, int amountSamples, double meanAmount, double stdDevAmount,
+                          long hourProfile, int networkMask, int recentFailures) {
+
+    public static final RiskProfile EMPTY = new RiskProfile(0, 0, 0, 0, 0, 0, 0);
+
+    public int hourActivity(int hour) {
+        return (int) (hourProfile >>> (2 * hour)) & 3;
+    }
+}
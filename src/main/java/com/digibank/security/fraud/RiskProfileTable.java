@@ -0,0 +1,322 @@
+package com.digibank.security.fraud;
+
+/**
+ * Per-user risk features in primitive arrays keyed by a long user id, using open addressing
+ * with linear probing. No boxed keys, entries or per-user objects: one user costs about
+ * 48 bytes of array space plus load-factor headroom. Amount statistics are kept per payment
+ * type. The table is split into segments, each guarded by its own monitor held only for a
+ * probe and a few array writes.
+ */
+final class RiskProfileTable {
+    private static final int SEGMENT_BITS = 6;
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+    private static final int INITIAL_CAPACITY = 256;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    // Packed meta word: payment count (16 bits), failures in window (8 bits), network mask (8 bits)
+    private static final int COUNT_MASK = 0xFFFF;
+    private static final int FAILURE_SHIFT = 16;
+    private static final int NETWORK_SHIFT = 24;
+    // Amount statistics per payment type (its ordinal), two per slot; sample counts packed 16 bits each
+    static final int PAYMENT_TYPES = 2;
+    private static final int SAMPLE_MASK = 0xFFFF;
+    // Hour profile: 2 bits per hour in the low 48 bits, payments since the last ageing above them
+    private static final int AGE_SHIFT = 48;
+    private static final long HOUR_MASK = (1L << AGE_SHIFT) - 1;
+    private static final int AGE_PERIOD = 64;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final int failureWindowMinutes;
+
+    RiskProfileTable(int maxUsers, int failureWindowMinutes) {
+        this.failureWindowMinutes = failureWindowMinutes;
+        int perSegment = Math.max(1, (maxUsers + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * The user's profile, with amount statistics for the given payment type
+     */
+    RiskProfile get(long userId, int paymentType, int nowMinute) {
+        long hash = mix(userId);
+        return segment(hash).get(userId, hash, paymentType, nowMinute, failureWindowMinutes);
+    }
+
+    /**
+     * Fold a completed payment into the user's profile. Returns false when the table is full.
+     */
+    boolean learn(long userId, int paymentType, double amount, int hour, int networkBit, int nowMinute, double alpha) {
+        long hash = mix(userId);
+        return segment(hash).learn(userId, hash, paymentType, amount, hour, networkBit, nowMinute, alpha);
+    }
+
+    boolean recordFailure(long userId, int nowMinute) {
+        long hash = mix(userId);
+        return segment(hash).recordFailure(userId, hash, nowMinute, failureWindowMinutes);
+    }
+
+    /**
+     * Drop users not seen since the cutoff; returns how many were removed
+     */
+    int evictIdle(int cutoffMinute) {
+        int removed = 0;
+        for (Segment segment : segments) {
+            removed += segment.evictIdle(cutoffMinute);
+        }
+        return removed;
+    }
+
+    long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    long capacity() {
+        long capacity = 0;
+        for (Segment segment : segments) {
+            capacity += segment.capacity();
+        }
+        return capacity;
+    }
+
+    private Segment segment(long hash) {
+        return segments[(int) (hash >>> (64 - SEGMENT_BITS))];
+    }
+
+    // MurmurHash3 finaliser: sequential ids spread over segments and slots
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static final class Segment {
+        private final int maxSize;
+        private int size;
+        private long[] keys;        // 0 marks a free slot; user ids start at 1
+        private float[] mean;       // PAYMENT_TYPES entries per slot
+        private float[] variance;   // PAYMENT_TYPES entries per slot
+        private long[] hours;
+        private int[] meta;
+        private int[] samples;      // amount samples per payment type, 16 bits each
+        private int[] failureStart; // epoch minute the failure window opened
+        private int[] lastSeen;     // epoch minute of the last update
+
+        Segment(int maxSize) {
+            this.maxSize = maxSize;
+            allocate(Math.min(INITIAL_CAPACITY, tableSizeFor(maxSize)));
+        }
+
+        synchronized RiskProfile get(long userId, long hash, int paymentType, int nowMinute, int windowMinutes) {
+            int slot = find(userId, hash);
+            if (slot < 0) {
+                return RiskProfile.EMPTY;
+            }
+            int m = meta[slot];
+            int failures = nowMinute - failureStart[slot] < windowMinutes ? (m >>> FAILURE_SHIFT) & 0xFF : 0;
+            int amountSlot = slot * PAYMENT_TYPES + paymentType;
+            return new RiskProfile(m & COUNT_MASK, sampleCount(samples[slot], paymentType), mean[amountSlot],
+                Math.sqrt(variance[amountSlot]), hours[slot] & HOUR_MASK, m >>> NETWORK_SHIFT, failures);
+        }
+
+        synchronized boolean learn(long userId, long hash, int paymentType, double amount, int hour, int networkBit,
+                                   int nowMinute, double alpha) {
+            int slot = findOrInsert(userId, hash);
+            if (slot < 0) {
+                return false;
+            }
+            int amountSlot = slot * PAYMENT_TYPES + paymentType;
+            int typeSamples = sampleCount(samples[slot], paymentType);
+            if (typeSamples == 0) {
+                mean[amountSlot] = (float) amount;
+                variance[amountSlot] = 0;
+            } else {
+                // Exponentially weighted mean and variance (West's incremental form)
+                double diff = amount - mean[amountSlot];
+                double increment = alpha * diff;
+                mean[amountSlot] = (float) (mean[amountSlot] + increment);
+                variance[amountSlot] = (float) ((1 - alpha) * (variance[amountSlot] + diff * increment));
+            }
+            if (typeSamples < SAMPLE_MASK) {
+                samples[slot] += 1 << (16 * paymentType);
+            }
+
+            int m = meta[slot];
+            int count = m & COUNT_MASK;
+            if (count < COUNT_MASK) {
+                count++;
+            }
+            hours[slot] = bumpHour(hours[slot], hour);
+            meta[slot] = (m & ~COUNT_MASK) | count | (networkBit << NETWORK_SHIFT);
+            lastSeen[slot] = nowMinute;
+            return true;
+        }
+
+        synchronized boolean recordFailure(long userId, long hash, int nowMinute, int windowMinutes) {
+            int slot = findOrInsert(userId, hash);
+            if (slot < 0) {
+                return false;
+            }
+            int m = meta[slot];
+            int failures = (m >>> FAILURE_SHIFT) & 0xFF;
+            if (nowMinute - failureStart[slot] >= windowMinutes) {
+                failureStart[slot] = nowMinute;
+                failures = 0;
+            }
+            failures = Math.min(failures + 1, 0xFF);
+            meta[slot] = (m & ~(0xFF << FAILURE_SHIFT)) | (failures << FAILURE_SHIFT);
+            lastSeen[slot] = nowMinute;
+            return true;
+        }
+
+        synchronized int evictIdle(int cutoffMinute) {
+            long[] oldKeys = keys;
+            float[] oldMean = mean;
+            float[] oldVariance = variance;
+            long[] oldHours = hours;
+            int[] oldMeta = meta;
+            int[] oldSamples = samples;
+            int[] oldFailureStart = failureStart;
+            int[] oldLastSeen = lastSeen;
+            int before = size;
+            // Rebuilding instead of deleting in place keeps probe chains intact without tombstones
+            allocate(oldKeys.length);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0 && oldLastSeen[i] >= cutoffMinute) {
+                    int slot = insert(oldKeys[i], mix(oldKeys[i]));
+                    System.arraycopy(oldMean, i * PAYMENT_TYPES, mean, slot * PAYMENT_TYPES, PAYMENT_TYPES);
+                    System.arraycopy(oldVariance, i * PAYMENT_TYPES, variance, slot * PAYMENT_TYPES, PAYMENT_TYPES);
+                    hours[slot] = oldHours[i];
+                    meta[slot] = oldMeta[i];
+                    samples[slot] = oldSamples[i];
+                    failureStart[slot] = oldFailureStart[i];
+                    lastSeen[slot] = oldLastSeen[i];
+                }
+            }
+            return before - size;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized int capacity() {
+            return keys.length;
+        }
+
+        private int find(long userId, long hash) {
+            int mask = keys.length - 1;
+            for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+                long key = keys[slot];
+                if (key == userId) {
+                    return slot;
+                }
+                if (key == 0) {
+                    return -1;
+                }
+            }
+        }
+
+        private int findOrInsert(long userId, long hash) {
+            int slot = find(userId, hash);
+            if (slot >= 0) {
+                return slot;
+            }
+            if (size >= maxSize) {
+                return -1;
+            }
+            if (size + 1 > keys.length * LOAD_FACTOR) {
+                grow();
+            }
+            return insert(userId, hash);
+        }
+
+        private int insert(long userId, long hash) {
+            int mask = keys.length - 1;
+            int slot = (int) hash & mask;
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = userId;
+            size++;
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            float[] oldMean = mean;
+            float[] oldVariance = variance;
+            long[] oldHours = hours;
+            int[] oldMeta = meta;
+            int[] oldSamples = samples;
+            int[] oldFailureStart = failureStart;
+            int[] oldLastSeen = lastSeen;
+            allocate(oldKeys.length * 2);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = insert(oldKeys[i], mix(oldKeys[i]));
+                    System.arraycopy(oldMean, i * PAYMENT_TYPES, mean, slot * PAYMENT_TYPES, PAYMENT_TYPES);
+                    System.arraycopy(oldVariance, i * PAYMENT_TYPES, variance, slot * PAYMENT_TYPES, PAYMENT_TYPES);
+                    hours[slot] = oldHours[i];
+                    meta[slot] = oldMeta[i];
+                    samples[slot] = oldSamples[i];
+                    failureStart[slot] = oldFailureStart[i];
+                    lastSeen[slot] = oldLastSeen[i];
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            mean = new float[capacity * PAYMENT_TYPES];
+            variance = new float[capacity * PAYMENT_TYPES];
+            hours = new long[capacity];
+            meta = new int[capacity];
+            samples = new int[capacity];
+            failureStart = new int[capacity];
+            lastSeen = new int[capacity];
+            size = 0;
+        }
+
+        private static int sampleCount(int packed, int paymentType) {
+            return (packed >>> (16 * paymentType)) & SAMPLE_MASK;
+        }
+
+        /**
+         * Saturating 2-bit counter per hour. Every 64 payments all counters age by one,
+         * so hours the user has stopped using fade out of the profile. Ageing has its own
+         * counter, so it goes on after the payment count saturates.
+         */
+        private static long bumpHour(long profile, int hour) {
+            long levels = profile & HOUR_MASK;
+            long sinceAgeing = (profile >>> AGE_SHIFT) + 1;
+            if (sinceAgeing == AGE_PERIOD) {
+                long aged = 0;
+                for (int h = 0; h < 24; h++) {
+                    long level = (levels >>> (2 * h)) & 3;
+                    aged |= Math.max(0, level - 1) << (2 * h);
+                }
+                levels = aged;
+                sinceAgeing = 0;
+            }
+            if (((levels >>> (2 * hour)) & 3) < 3) {
+                levels += 1L << (2 * hour);
+            }
+            return levels | (sinceAgeing << AGE_SHIFT);
+        }
+
+        // Smallest power of two holding maxSize entries at the load factor
+        private static int tableSizeFor(int maxSize) {
+            int needed = (int) Math.ceil(maxSize / (double) LOAD_FACTOR);
+            return Math.max(2, Integer.highestOneBit(needed - 1) << 1);
+        }
+    }
+}
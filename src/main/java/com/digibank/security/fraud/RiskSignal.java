@@ -0,0 +1,20 @@
+package com.digibank.security.fraud;
+
+/**
+ * One contribution to a payment's risk score. Every signal bean is picked up by
+ * {@link FraudScoringEngine}; its strength is scaled by its weight and summed.
+ */
+public interface RiskSignal {
+
+    String name();
+
+    /**
+     * Maximum points this signal adds to the 0-100 score
+     */
+    double weight();
+
+    /**
+     * Strength in [0, 1]. Called on the payment path, so it must not block or query.
+     */
+    double evaluate(RiskContext context, RiskProfile profile);
+}
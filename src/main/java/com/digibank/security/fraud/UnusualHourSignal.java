@@ -0,0 +1,40 @@
+package com.digibank.security.fraud;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Payment at an hour of day the user has not been active in
+ */
+@Component
+public class UnusualHourSignal implements RiskSignal {
+    @Value("${fraud.weights.unusual-hour:20}")
+    private double weight;
+
+    @Value("${fraud.min-history:5}")
+    private int minHistory;
+
+    @Override
+    public String name() {
+        return "unusual_hour";
+    }
+
+    @Override
+    public double weight() {
+        return weight;
+    }
+
+    @Override
+    public double evaluate(RiskContext context, RiskProfile profile) {
+        if (profile.payments() < minHistory) {
+            return 0;
+        }
+        if (profile.hourActivity(context.hour()) > 0) {
+            return 0;
+        }
+        // Activity in a neighbouring hour halves the signal, so 08:59 vs 09:01 habits are not flagged
+        boolean adjacent = profile.hourActivity((context.hour() + 23) % 24) > 0
+            || profile.hourActivity((context.hour() + 1) % 24) > 0;
+        return adjacent ? 0.5 : 1;
+    }
+}
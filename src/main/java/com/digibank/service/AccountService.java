@@ -1,5 +1,6 @@
 package com.digibank.service;
 
+import com.digibank.dto.BalanceSnapshot;
 import com.digibank.model.Account;
 import com.digibank.model.User;
 import com.digibank.repository.AccountRepository;
@@ -16,6 +17,12 @@ public class AccountService {
     @Autowired
     private AccountRepository accountRepository;
 
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    @Autowired
+    private BalanceCache balanceCache;
+
     public Account getOrCreateAccount(User user) {
         return accountRepository.findByUser(user)
             .orElseGet(() -> {
@@ -23,25 +30,43 @@ public class AccountService {
                 account.setUser(user);
                 account.setFiatBalance(BigDecimal.ZERO);
                 account.setCryptoBalance(BigDecimal.ZERO);
-                return accountRepository.save(account);
+                Account saved = accountRepository.save(account);
+                balanceCache.put(saved);
+                return saved;
             });
     }
 
+    /**
+     * Balances only, served from the balance cache; loads the account on a miss
+     */
+    public BalanceSnapshot getBalance(Long userId) {
+        return balanceCache.get(userId);
+    }
+
     public Account getAccountByUserId(Long userId) {
         return accountRepository.findByUserId(userId)
             .orElseThrow(() -> new RuntimeException("Account not found"));
     }
 
     public Account addFiatBalance(Long userId, BigDecimal amount) {
-        Account account = getAccountByUserId(userId);
-        account.setFiatBalance(account.getFiatBalance().add(amount));
-        return accountRepository.save(account);
+        Account updated = optimisticRetry.execute("fiat-credit", () -> {
+            Account account = getAccountByUserId(userId);
+            account.setFiatBalance(account.getFiatBalance().add(amount));
+            return accountRepository.save(account);
+        });
+        // OptimisticRetry has committed by now, and the flush has bumped the version on the entity
+        balanceCache.put(updated);
+        return updated;
     }
 
     public Account addCryptoBalance(Long userId, BigDecimal amount) {
-        Account account = getAccountByUserId(userId);
-        account.setCryptoBalance(account.getCryptoBalance().add(amount));
-        return accountRepository.save(account);
+        Account updated = optimisticRetry.execute("crypto-credit", () -> {
+            Account account = getAccountByUserId(userId);
+            account.setCryptoBalance(account.getCryptoBalance().add(amount));
+            return accountRepository.save(account);
+        });
+        balanceCache.put(updated);
+        return updated;
     }
 }
 
@@ -3,24 +3,119 @@ package com.digibank.service;
 import com.digibank.model.AuditLog;
 import com.digibank.model.Transaction;
 import com.digibank.repository.AuditLogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Audit logging with a write-behind buffer. Events are queued on a bounded ring and
+ * flushed as batched inserts when the batch fills or the flush interval elapses.
+ * Event types listed in audit.sync-event-types are written synchronously instead.
+ */
 @Service
 public class AuditService {
     private static final Logger log = LoggerFactory.getLogger(AuditService.class);
+    private static final int MAX_FLUSH_ATTEMPTS = 3;
+
     @Autowired
     private AuditLogRepository auditLogRepository;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${audit.write-behind.enabled:true}")
+    private boolean writeBehind;
+
+    @Value("${audit.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${audit.write-behind.batch-size:200}")
+    private int batchSize;
+
+    @Value("${audit.write-behind.flush-interval-ms:500}")
+    private long flushIntervalMillis;
+
+    @Value("${audit.sync-event-types:SECURITY_ALERT}")
+    private Set<AuditLog.AuditEventType> syncEventTypes = EnumSet.noneOf(AuditLog.AuditEventType.class);
+
+    private TransactionTemplate flushTransaction;
+    private BlockingQueue<AuditLog> buffer;
+    private Thread flusher;
+    private volatile boolean running;
+    private Timer flushTimer;
+    private Counter flushed;
+    private Counter overflow;
+    private Counter dropped;
+
+    @PostConstruct
+    void init() {
+        // Overflow flushes run from afterCommit, where joining the finished transaction would never commit
+        flushTransaction = new TransactionTemplate(transactionManager);
+        flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        buffer = new ArrayBlockingQueue<>(capacity);
+        flushTimer = Timer.builder("audit.flush.latency").register(meterRegistry);
+        flushed = Counter.builder("audit.flushed").register(meterRegistry);
+        overflow = Counter.builder("audit.overflow").description("Events written synchronously because the buffer was full")
+            .register(meterRegistry);
+        dropped = Counter.builder("audit.dropped").register(meterRegistry);
+        Gauge.builder("audit.backlog", buffer, BlockingQueue::size).register(meterRegistry);
+
+        if (writeBehind) {
+            running = true;
+            flusher = new Thread(this::flushLoop, "audit-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+    }
+
+    /**
+     * Graceful shutdown: stop accepting the flush loop and write out everything still buffered
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        List<AuditLog> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+    }
+
     public void logPayment(Long userId, String paymentType, java.math.BigDecimal amount, Transaction.ServiceType serviceType) {
         AuditLog log = new AuditLog();
         log.setUserId(userId);
         log.setEventType(AuditLog.AuditEventType.PAYMENT);
         log.setAction("PAYMENT_PROCESSED");
         log.setDetails(String.format("Payment: %s, Amount: %s, Service: %s", paymentType, amount, serviceType));
-        auditLogRepository.save(log);
+        record(log);
     }
 
     public void logSecurityEvent(Long userId, String details) {
@@ -29,7 +124,7 @@ public class AuditService {
         log.setEventType(AuditLog.AuditEventType.SECURITY_ALERT);
         log.setAction("SECURITY_ALERT");
         log.setDetails(details);
-        auditLogRepository.save(log);
+        record(log);
     }
 
     public void logAuthentication(Long userId, String action, String ipAddress) {
@@ -38,8 +133,94 @@ public class AuditService {
         log.setEventType(AuditLog.AuditEventType.AUTHENTICATION);
         log.setAction(action);
         log.setIpAddress(ipAddress);
-        auditLogRepository.save(log);
+        record(log);
+    }
+
+    public int getBacklog() {
+        return buffer.size();
+    }
+
+    private void record(AuditLog entry) {
+        if (!writeBehind || syncEventTypes.contains(entry.getEventType())) {
+            // Compliance-critical: written in the caller's transaction
+            auditLogRepository.save(entry);
+            return;
+        }
+        entry.setTimestamp(LocalDateTime.now());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Only buffer once the business transaction has committed
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(entry);
+                }
+            });
+        } else {
+            enqueue(entry);
+        }
+    }
+
+    private void enqueue(AuditLog entry) {
+        if (!running || !buffer.offer(entry)) {
+            // Buffer full or shutting down: never lose the event, write it directly
+            overflow.increment();
+            flush(List.of(entry));
+        }
     }
-}
 
+    private void flushLoop() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        long deadline = 0;
+        while (running || !buffer.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    AuditLog first = buffer.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    deadline = System.currentTimeMillis() + flushIntervalMillis;
+                }
+                buffer.drainTo(batch, batchSize - batch.size());
 
+                long remaining = deadline - System.currentTimeMillis();
+                if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                    flush(batch);
+                    batch.clear();
+                    continue;
+                }
+                AuditLog next = buffer.poll(remaining, TimeUnit.MILLISECONDS);
+                if (next != null) {
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("Audit flush loop error: {}", e.getMessage());
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<AuditLog> batch) {
+        for (int attempt = 1; attempt <= MAX_FLUSH_ATTEMPTS; attempt++) {
+            long start = System.nanoTime();
+            try {
+                // Sequence ids let Hibernate send the whole batch as multi-row inserts
+                flushTransaction.executeWithoutResult(status -> auditLogRepository.saveAll(batch));
+                flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                flushed.increment(batch.size());
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Audit flush of {} events failed (attempt {}): {}", batch.size(), attempt, e.getMessage());
+                // Ids assigned by the rolled-back attempt must not make the retry look like an update
+                batch.forEach(entry -> entry.setId(null));
+            }
+        }
+        dropped.increment(batch.size());
+        log.error("Dropped {} audit events after {} failed flush attempts", batch.size(), MAX_FLUSH_ATTEMPTS);
+    }
+}
@@ -2,6 +2,8 @@ package com.digibank.service;
 
 import com.digibank.model.User;
 import com.digibank.repository.UserRepository;
+import com.digibank.security.PrincipalCache;
+import com.digibank.security.VerifiedToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +21,12 @@ public class AuthService {
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private PasswordService passwordService;
+
     public String login(String username, String password) {
         Optional<User> userOpt = userRepository.findByUsername(username);
         if (userOpt.isEmpty()) {
@@ -26,13 +34,17 @@ public class AuthService {
         }
 
         User user = userOpt.get();
-        // In production, use BCrypt or similar for password hashing
-        if (!user.getPassword().equals(password)) {
+        PasswordService.Verification verification = passwordService.verify(password, user.getPassword());
+        if (!verification.matches()) {
             throw new RuntimeException("Invalid credentials");
         }
+        if (verification.needsUpgrade()) {
+            user.setPassword(verification.upgradedHash());
+            log.info("Rehashed password for user {} with current cost parameters", username);
+        }
 
         user.setLastLogin(LocalDateTime.now());
-        userRepository.save(user);
+        saveUser(user);
 
         log.info("User {} logged in successfully", username);
         return jwtService.generateToken(user);
@@ -49,19 +61,38 @@ public class AuthService {
         User user = new User();
         user.setUsername(username);
         user.setEmail(email);
-        user.setPassword(password); // Should be hashed in production
+        user.setPassword(passwordService.hash(password));
         user.setRole(role != null ? role : User.UserRole.RESIDENT);
 
-        User savedUser = userRepository.save(user);
+        User savedUser = saveUser(user);
         log.info("User {} registered successfully", username);
         return savedUser;
     }
 
     public User validateToken(String token) {
-        String username = jwtService.extractUsername(token);
-        return userRepository.findByUsername(username)
-            .orElseThrow(() -> new RuntimeException("Invalid token"));
+        return loadPrincipal(jwtService.verify(token));
     }
-}
 
+    /**
+     * Resolve the user behind an already verified token
+     */
+    public User loadPrincipal(VerifiedToken token) {
+        return getPrincipal(token.username());
+    }
+
+    /**
+     * Cached user lookup; only a cache miss reaches the database
+     */
+    public User getPrincipal(String username) {
+        return principalCache.get(username, key -> userRepository.findByUsername(key)
+            .orElseThrow(() -> new RuntimeException("Invalid token")));
+    }
 
+    // All user writes go through here so the principal cache never serves a stale user
+    private User saveUser(User user) {
+        User savedUser = userRepository.save(user);
+        // Keyed by the immutable username: replacing the entry needs no scan by id
+        principalCache.put(savedUser);
+        return savedUser;
+    }
+}
@@ -0,0 +1,97 @@
+package com.digibank.service;
+
+import com.digibank.dto.BalanceSnapshot;
+import com.digibank.model.Account;
+import com.digibank.repository.AccountRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded read-through cache of balances keyed by user id. Every balance write on this node
+ * puts its result here once the write has committed, and an entry is only ever replaced by a
+ * higher account version, so a read never returns a balance older than this node's last
+ * committed write. Writes made by other nodes show up when the entry expires.
+ */
+@Component
+public class BalanceCache {
+    private final Cache<Long, BalanceSnapshot> cache;
+    private final AccountRepository accountRepository;
+
+    public BalanceCache(AccountRepository accountRepository,
+                        MeterRegistry meterRegistry,
+                        @Value("${balance.cache.max-size:100000}") long maxSize,
+                        @Value("${balance.cache.ttl-seconds:30}") long ttlSeconds) {
+        this.accountRepository = accountRepository;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "balances");
+    }
+
+    public BalanceSnapshot get(Long userId) {
+        return cache.get(userId, id -> accountRepository.findByUserId(id)
+            .map(account -> new BalanceSnapshot(id, account.getFiatBalance(), account.getCryptoBalance(),
+                account.getVersion()))
+            .orElseThrow(() -> new RuntimeException("Account not found")));
+    }
+
+    /**
+     * Publish a balance written in the current transaction once it commits, or now when there is none
+     */
+    public void afterCommit(AccountRepository.Balance balance) {
+        BalanceSnapshot snapshot = new BalanceSnapshot(balance.getUserId(), balance.getFiatBalance(),
+            balance.getCryptoBalance(), balance.getVersion());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(snapshot);
+                }
+            });
+        } else {
+            put(snapshot);
+        }
+    }
+
+    /**
+     * Publish an account that has already been committed
+     */
+    public void put(Account account) {
+        put(snapshot(account));
+    }
+
+    // Out-of-order publications (or a read-through racing a write) never move an entry backwards
+    private void put(BalanceSnapshot snapshot) {
+        cache.asMap().merge(snapshot.userId(), snapshot,
+            (current, update) -> update.version() >= current.version() ? update : current);
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+
+    private static BalanceSnapshot snapshot(Account account) {
+        return new BalanceSnapshot(account.getUser().getId(), account.getFiatBalance(),
+            account.getCryptoBalance(), account.getVersion());
+    }
+}
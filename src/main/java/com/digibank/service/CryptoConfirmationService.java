@@ -0,0 +1,197 @@
+package com.digibank.service;
+
+import com.digibank.metrics.RollingWindow;
+import com.digibank.model.Transaction;
+import com.digibank.pattern.adapter.CryptoAdapterFactory;
+import com.digibank.pattern.adapter.CryptoAdapterRegistry;
+import com.digibank.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Confirms submitted crypto payments. Each network is polled on its own adaptive interval:
+ * a batch of waiting hashes is verified in one gateway call and confirmed rows are completed
+ * with one bulk update. The interval drops to the minimum while confirmations arrive and
+ * doubles up to the maximum while nothing changes. Payments whose gateway call never answered
+ * keep their funds reserved until the same timeout expires them.
+ */
+@Service
+public class CryptoConfirmationService {
+    private static final Logger log = LoggerFactory.getLogger(CryptoConfirmationService.class);
+
+    @Value("${crypto.confirmation.batch-size:100}")
+    private int batchSize;
+
+    @Value("${crypto.confirmation.min-interval-ms:2000}")
+    private long minIntervalMillis;
+
+    @Value("${crypto.confirmation.max-interval-ms:30000}")
+    private long maxIntervalMillis;
+
+    @Value("${crypto.confirmation.timeout-minutes:60}")
+    private long timeoutMinutes;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private CryptoAdapterRegistry cryptoAdapters;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, NetworkPoll> polls = new LinkedHashMap<>();
+    private final RollingWindow verificationRate = new RollingWindow(1000, 60);
+    private Timer confirmationLag;
+
+    @PostConstruct
+    void init() {
+        for (String network : cryptoAdapters.networks()) {
+            polls.put(network, new NetworkPoll(minIntervalMillis));
+        }
+        confirmationLag = Timer.builder("crypto.confirmation.lag")
+            .description("Time from payment creation to on-chain confirmation")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${crypto.confirmation.min-interval-ms:2000}")
+    public void poll() {
+        long now = System.currentTimeMillis();
+        polls.forEach((network, poll) -> {
+            if (now >= poll.nextPollAt && poll.running.compareAndSet(false, true)) {
+                pollNetwork(network, poll);
+            }
+        });
+    }
+
+    /**
+     * Expire reserved payments whose gateway call timed out and never came back with a hash
+     */
+    @Scheduled(fixedDelayString = "${crypto.confirmation.max-interval-ms:30000}")
+    public void expireUnanswered() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(timeoutMinutes);
+        try {
+            List<Long> unanswered = transactionRepository.findUnanswered(Transaction.TransactionStatus.PENDING, cutoff);
+            unanswered.forEach(paymentService::expireCryptoPayment);
+            if (!unanswered.isEmpty()) {
+                log.warn("Expired {} crypto payments the gateway never answered", unanswered.size());
+            }
+        } catch (RuntimeException e) {
+            log.error("Expiring unanswered crypto payments failed: {}", e.getMessage());
+        }
+    }
+
+    private void pollNetwork(String network, NetworkPoll poll) {
+        List<TransactionRepository.AwaitingConfirmation> batch;
+        try {
+            batch = transactionRepository.findAwaitingConfirmation(Transaction.TransactionStatus.PENDING,
+                CryptoAdapterFactory.aliases(network), poll.cursor, PageRequest.of(0, batchSize));
+        } catch (RuntimeException e) {
+            log.error("Loading {} confirmations failed: {}", network, e.getMessage());
+            poll.finish(false);
+            return;
+        }
+        // Walk the backlog in id order and wrap around, so rows that stay unconfirmed do not starve newer ones
+        poll.cursor = batch.size() < batchSize ? 0L : batch.get(batch.size() - 1).getId();
+        if (batch.isEmpty()) {
+            poll.finish(false);
+            return;
+        }
+
+        List<String> hashes = batch.stream()
+            .map(TransactionRepository.AwaitingConfirmation::getTransactionHash)
+            .toList();
+        cryptoAdapters.gateway(network).verifyTransactions(hashes).whenComplete((results, error) -> {
+            boolean progressed = false;
+            try {
+                if (error != null) {
+                    log.warn("Verifying {} {} transactions failed: {}", batch.size(), network, error.getMessage());
+                } else {
+                    progressed = apply(network, batch, results);
+                }
+            } catch (RuntimeException e) {
+                log.error("Applying {} confirmations failed: {}", network, e.getMessage());
+            } finally {
+                poll.finish(progressed);
+            }
+        });
+    }
+
+    private boolean apply(String network, List<TransactionRepository.AwaitingConfirmation> batch, List<Boolean> results) {
+        verificationRate.record(batch.size(), 0);
+        Counter.builder("crypto.confirmation.verifications")
+            .tag("network", network)
+            .register(meterRegistry)
+            .increment(batch.size());
+
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(timeoutMinutes);
+        List<Long> confirmed = new ArrayList<>();
+        List<Long> expired = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            TransactionRepository.AwaitingConfirmation awaiting = batch.get(i);
+            if (Boolean.TRUE.equals(results.get(i))) {
+                confirmed.add(awaiting.getId());
+            } else if (awaiting.getTimestamp().isBefore(cutoff)) {
+                expired.add(awaiting.getId());
+            }
+        }
+
+        if (!confirmed.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            List<Transaction> completed = paymentService.confirmCryptoPayments(confirmed);
+            completed.forEach(transaction -> confirmationLag.record(Duration.between(transaction.getTimestamp(), now)));
+            log.info("Confirmed {} of {} {} transactions", completed.size(), batch.size(), network);
+        }
+        expired.forEach(paymentService::expireCryptoPayment);
+        return !confirmed.isEmpty();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("verificationsPerSecond", verificationRate.perSecond());
+        result.put("meanLagMillis", confirmationLag.mean(TimeUnit.MILLISECONDS));
+        result.put("maxLagMillis", confirmationLag.max(TimeUnit.MILLISECONDS));
+        Map<String, Long> intervals = new LinkedHashMap<>();
+        polls.forEach((network, poll) -> intervals.put(network, poll.intervalMillis));
+        result.put("pollIntervalMillis", intervals);
+        return result;
+    }
+
+    private final class NetworkPoll {
+        private final AtomicBoolean running = new AtomicBoolean();
+        private volatile long intervalMillis;
+        private volatile long nextPollAt;
+        private volatile long cursor;
+
+        NetworkPoll(long intervalMillis) {
+            this.intervalMillis = intervalMillis;
+        }
+
+        void finish(boolean progressed) {
+            intervalMillis = progressed ? minIntervalMillis : Math.min(maxIntervalMillis, intervalMillis * 2);
+            nextPollAt = System.currentTimeMillis() + intervalMillis;
+            running.set(false);
+        }
+    }
+}
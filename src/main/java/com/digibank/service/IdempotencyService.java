@@ -0,0 +1,262 @@
+package com.digibank.service;
+
+import com.digibank.dto.ApiResponse;
+import com.digibank.model.IdempotencyRecord;
+import com.digibank.model.Transaction;
+import com.digibank.repository.IdempotencyRecordRepository;
+import com.digibank.repository.TransactionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier dedupe for payment requests carrying an Idempotency-Key header.
+ * Tier one is an in-memory LRU of in-flight and recent outcomes, which also makes concurrent
+ * duplicates on this node wait for the first execution. Tier two is the idempotency_keys
+ * table, which covers other nodes and restarts. The payment row itself carries the key under a
+ * unique constraint, so a payment that committed before its record did (a crash, or a run longer
+ * than the lease) is replayed rather than paid again.
+ */
+@Service
+public class IdempotencyService {
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final TypeReference<ApiResponse<Transaction>> RESPONSE_TYPE = new TypeReference<>() {
+    };
+    private static final long POLL_MILLIS = 50;
+
+    private final IdempotencyRecordRepository repository;
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, CompletableFuture<StoredResponse>> recent;
+    private final Duration ttl;
+    private final Duration lease;
+    private final long waitMillis;
+    private final ThreadLocal<String> currentKey = new ThreadLocal<>();
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              TransactionRepository transactionRepository,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${idempotency.cache.max-size:10000}") long maxSize,
+                              @Value("${idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${idempotency.lease-seconds:60}") long leaseSeconds,
+                              @Value("${idempotency.wait-ms:10000}") long waitMillis) {
+        this.repository = repository;
+        this.transactionRepository = transactionRepository;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.waitMillis = waitMillis;
+        this.recent = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recent, "idempotency");
+    }
+
+    /**
+     * Run the action at most once per (user, endpoint, key); retries get the original response.
+     * {@code recovered} builds the response for a payment that committed without its record.
+     */
+    public ResponseEntity<ApiResponse<Transaction>> execute(Long userId, String endpoint, String key, Object request,
+                                                            Supplier<ResponseEntity<ApiResponse<Transaction>>> action,
+                                                            Function<Transaction, ResponseEntity<ApiResponse<Transaction>>> recovered) {
+        String scopedKey = userId + ":" + endpoint + ":" + key;
+        String requestHash = fingerprint(endpoint, request);
+
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> existing = recent.asMap().putIfAbsent(scopedKey, mine);
+        if (existing != null) {
+            // Duplicate on this node: wait for (or reuse) the first execution
+            return replay(await(existing), requestHash);
+        }
+
+        try {
+            StoredResponse stored = executeOnce(scopedKey, requestHash, action, recovered);
+            mine.complete(stored);
+            if (!stored.persisted()) {
+                recent.invalidate(scopedKey);
+            }
+            // A record completed by an earlier request (another node, or before a restart) is a replay
+            return stored.replayed() ? replay(stored, requestHash) : stored.toResponse(false);
+        } catch (RuntimeException e) {
+            recent.invalidate(scopedKey);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Scoped key of the idempotent request running on this thread, stamped on the payment it creates
+     */
+    public String currentKey() {
+        return currentKey.get();
+    }
+
+    private StoredResponse executeOnce(String scopedKey, String requestHash,
+                                       Supplier<ResponseEntity<ApiResponse<Transaction>>> action,
+                                       Function<Transaction, ResponseEntity<ApiResponse<Transaction>>> recovered) {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        while (true) {
+            Instant now = Instant.now();
+            if (repository.claim(scopedKey, requestHash, now, now.plus(ttl), now.minus(lease)) == 1) {
+                break;
+            }
+            Optional<IdempotencyRecord> record = repository.findById(scopedKey);
+            if (record.isPresent() && record.get().getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                return StoredResponse.from(record.get(), objectMapper);
+            }
+            // Another node holds the key: poll until it finishes or the wait elapses
+            if (System.currentTimeMillis() >= deadline) {
+                return StoredResponse.transientError(requestHash, 409, "Request with this idempotency key is in progress");
+            }
+            sleep();
+        }
+
+        // A reclaimed key may belong to a payment that committed before its record was completed
+        Optional<Transaction> committed = transactionRepository.findByIdempotencyKey(scopedKey);
+        if (committed.isPresent()) {
+            return recover(scopedKey, requestHash, recovered.apply(committed.get()));
+        }
+
+        ResponseEntity<ApiResponse<Transaction>> response;
+        currentKey.set(scopedKey);
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            repository.release(scopedKey);
+            throw e;
+        } finally {
+            currentKey.remove();
+        }
+
+        int status = response.getStatusCode().value();
+        if (status >= 400) {
+            // Failed on the unique key: the original run outlived its lease and has committed since
+            committed = transactionRepository.findByIdempotencyKey(scopedKey);
+            if (committed.isPresent()) {
+                return recover(scopedKey, requestHash, recovered.apply(committed.get()));
+            }
+        }
+        if (status >= 500) {
+            // Transient failures are not recorded, so the client may retry with the same key
+            repository.release(scopedKey);
+            return new StoredResponse(requestHash, status, response.getBody(), false, false);
+        }
+        repository.complete(scopedKey, status, serialize(response.getBody()));
+        return new StoredResponse(requestHash, status, response.getBody(), true, false);
+    }
+
+    private StoredResponse recover(String scopedKey, String requestHash, ResponseEntity<ApiResponse<Transaction>> response) {
+        int status = response.getStatusCode().value();
+        repository.complete(scopedKey, status, serialize(response.getBody()));
+        log.info("Idempotency key {} replayed from its committed payment", scopedKey);
+        return new StoredResponse(requestHash, status, response.getBody(), true, true);
+    }
+
+    private ResponseEntity<ApiResponse<Transaction>> replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            return ResponseEntity.status(422)
+                .body(ApiResponse.error("Idempotency key was already used for a different request"));
+        }
+        return stored.toResponse(true);
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> future) {
+        try {
+            return future.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Request with this idempotency key is still in progress");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Original request failed: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for original request");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.prune-interval-ms:600000}")
+    public void prune() {
+        int deleted = repository.deleteExpired(Instant.now());
+        if (deleted > 0) {
+            log.info("Pruned {} expired idempotency keys", deleted);
+        }
+    }
+
+    private String fingerprint(String endpoint, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(endpoint.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Cannot fingerprint request", e);
+        }
+    }
+
+    private String serialize(ApiResponse<Transaction> body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot store idempotent response", e);
+        }
+    }
+
+    private static void sleep() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(POLL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for original request");
+        }
+    }
+
+    private record StoredResponse(String requestHash, int status, ApiResponse<Transaction> body,
+                                  boolean persisted, boolean replayed) {
+
+        static StoredResponse from(IdempotencyRecord record, ObjectMapper objectMapper) {
+            try {
+                ApiResponse<Transaction> body = objectMapper.readValue(record.getResponseBody(), RESPONSE_TYPE);
+                return new StoredResponse(record.getRequestHash(), record.getHttpStatus(), body, true, true);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Stored idempotent response is unreadable", e);
+            }
+        }
+
+        static StoredResponse transientError(String requestHash, int status, String message) {
+            return new StoredResponse(requestHash, status, ApiResponse.error(message), false, false);
+        }
+
+        ResponseEntity<ApiResponse<Transaction>> toResponse(boolean replay) {
+            ResponseEntity.BodyBuilder builder = ResponseEntity.status(status);
+            if (replay) {
+                builder.header("Idempotent-Replayed", "true");
+            }
+            return builder.body(body);
+        }
+    }
+}
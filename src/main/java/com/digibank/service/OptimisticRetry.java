@@ -0,0 +1,80 @@
+package com.digibank.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs a read-modify-write unit in its own transaction and retries it with
+ * jittered exponential backoff when a concurrent update bumps the entity version.
+ * Must not be called from inside an existing transaction, or the retry would join it.
+ */
+@Component
+public class OptimisticRetry {
+    private static final Logger log = LoggerFactory.getLogger(OptimisticRetry.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    public OptimisticRetry(PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${account.retry.max-attempts:5}") int maxAttempts,
+                           @Value("${account.retry.base-delay-ms:5}") long baseDelayMillis,
+                           @Value("${account.retry.max-delay-ms:200}") long maxDelayMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public <T> T execute(String operation, Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = transactionTemplate.execute(status -> work.get());
+                if (attempt > 1) {
+                    counter("account.update.retried.success", operation).increment();
+                }
+                return result;
+            } catch (OptimisticLockingFailureException e) {
+                counter("account.update.conflicts", operation).increment();
+                if (attempt >= maxAttempts) {
+                    counter("account.update.retries.exhausted", operation).increment();
+                    log.warn("{} gave up after {} conflicting attempts", operation, attempt);
+                    throw new RuntimeException("Account is busy, please retry", e);
+                }
+                counter("account.update.retries", operation).increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    // Full jitter: uniform in [0, min(max, base * 2^attempt)]
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt, 20));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            TimeUnit.MILLISECONDS.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying account update", e);
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return meterRegistry.counter(name, "operation", operation);
+    }
+}
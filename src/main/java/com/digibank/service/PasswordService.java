@@ -0,0 +1,199 @@
+package com.digibank.service;
+
+import com.digibank.metrics.RollingWindow;
+import com.digibank.security.Pbkdf2PasswordHasher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Password hashing on a dedicated bounded pool so login bursts cannot starve request threads.
+ * The PBKDF2 work factor is calibrated at startup to a target latency unless fixed in config.
+ * Stored hashes are only upgraded when below the configured min-iterations floor.
+ */
+@Service
+public class PasswordService {
+    private static final Logger log = LoggerFactory.getLogger(PasswordService.class);
+    private static final int PROBE_ITERATIONS = 20_000;
+
+    @Value("${auth.password.threads:0}")
+    private int threads;
+
+    @Value("${auth.password.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${auth.password.target-ms:250}")
+    private long targetMillis;
+
+    @Value("${auth.password.iterations:0}")
+    private int fixedIterations;
+
+    @Value("${auth.password.min-iterations:100000}")
+    private int minIterations;
+
+    @Value("${auth.password.timeout-ms:5000}")
+    private long timeoutMillis;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+    private Pbkdf2PasswordHasher hasher;
+    private Timer hashTimer;
+    private Counter rejections;
+    private final RollingWindow rate = new RollingWindow(1000, 60);
+
+    @PostConstruct
+    void init() {
+        int iterations = fixedIterations > 0 ? fixedIterations : calibrate();
+        // The floor is config shared by all nodes; calibrated counts differ per node and must not trigger rehashes
+        hasher = new Pbkdf2PasswordHasher(iterations, Math.min(minIterations, iterations));
+
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadIds = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-hash-" + threadIds.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "password-hashing");
+        hashTimer = Timer.builder("auth.password.hash").register(meterRegistry);
+        rejections = Counter.builder("auth.password.rejected").register(meterRegistry);
+        log.info("Password hashing: PBKDF2 {} iterations (rehash below {}), {} threads, queue {}",
+            iterations, Math.min(minIterations, iterations), poolSize, queueCapacity);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public String hash(String password) {
+        return submit(() -> timedHash(password));
+    }
+
+    /**
+     * Verify a password and, on success, rehash it if the stored cost parameters are outdated.
+     * Both steps run as one task on the hashing pool.
+     */
+    public Verification verify(String password, String storedHash) {
+        return submit(() -> {
+            long start = System.nanoTime();
+            boolean matches = hasher.matches(password, storedHash);
+            record(System.nanoTime() - start);
+            if (matches && hasher.needsRehash(storedHash)) {
+                return new Verification(true, timedHash(password));
+            }
+            return new Verification(matches, null);
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("iterations", hasher.getIterations());
+        result.put("hashesPerSecond", rate.perSecond());
+        result.put("meanMillis", hashTimer.mean(TimeUnit.MILLISECONDS));
+        result.put("queueDepth", executor.getQueue().size());
+        result.put("rejected", (long) rejections.count());
+        return result;
+    }
+
+    private String timedHash(String password) {
+        long start = System.nanoTime();
+        String encoded = hasher.hash(password);
+        record(System.nanoTime() - start);
+        return encoded;
+    }
+
+    private void record(long nanos) {
+        hashTimer.record(nanos, TimeUnit.NANOSECONDS);
+        rate.increment();
+    }
+
+    /**
+     * Run a task on the hashing pool. A full queue or a missed deadline is reported as
+     * RejectedExecutionException, so callers answer 503 rather than "invalid credentials".
+     */
+    private <T> T submit(Callable<T> task) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                // PBKDF2 ignores interrupts, so a task whose caller has given up must not start hashing
+                if (System.nanoTime() - deadline >= 0) {
+                    throw new RejectedExecutionException("Password hashing timed out");
+                }
+                return task.call();
+            });
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw e;
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejections.increment();
+            throw new RejectedExecutionException("Password hashing timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Password hashing interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new RuntimeException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /**
+     * Measure a probe hash and scale it to the target latency.
+     * Rounded up to a power of two so restarts on the same hardware keep the same cost
+     * and do not trigger needless rehashing.
+     */
+    private int calibrate() {
+        Pbkdf2PasswordHasher probe = new Pbkdf2PasswordHasher(PROBE_ITERATIONS);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            probe.hash("calibration");
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        long perTarget = PROBE_ITERATIONS * TimeUnit.MILLISECONDS.toNanos(targetMillis) / Math.max(1, best);
+        int iterations = Integer.highestOneBit((int) Math.min(Integer.MAX_VALUE / 2, Math.max(1, perTarget)));
+        if (iterations < perTarget) {
+            iterations <<= 1;
+        }
+        return Math.max(minIterations, iterations);
+    }
+
+    public record Verification(boolean matches, String upgradedHash) {
+        public boolean needsUpgrade() {
+            return upgradedHash != null;
+        }
+    }
+}
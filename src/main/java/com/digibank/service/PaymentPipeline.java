@@ -0,0 +1,143 @@
+package com.digibank.service;
+
+import com.digibank.model.Transaction;
+import com.digibank.pattern.command.PendingPaymentCommand;
+import com.digibank.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Accept-then-process payment pipeline: a fixed pool of workers drains a bounded
+ * queue of pending payment commands, so request latency does not depend on downstream work.
+ */
+@Service
+public class PaymentPipeline {
+    private static final Logger log = LoggerFactory.getLogger(PaymentPipeline.class);
+
+    @Value("${payment.pipeline.workers:4}")
+    private int workers;
+
+    @Value("${payment.pipeline.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+    // Completion signals for long-polling status requests on this node
+    private final Map<Long, CompletableFuture<Transaction>> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadIds = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> new Thread(runnable, "payment-worker-" + threadIds.incrementAndGet()),
+            new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "payment-pipeline");
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        // Anything still queued stays PENDING in the database and is requeued on next start
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Payment pipeline stopped with {} queued payments", executor.getQueue().size());
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Queue a pending payment; throws {@link RejectedExecutionException} when the queue is full
+     */
+    public void submit(PendingPaymentCommand command) {
+        Long id = command.getTransactionId();
+        CompletableFuture<Transaction> completion = new CompletableFuture<>();
+        inFlight.put(id, completion);
+        try {
+            executor.execute(() -> run(command, completion));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(id);
+            throw e;
+        }
+    }
+
+    /**
+     * Completion signal for a payment queued on this node, or null if it is not in flight here
+     */
+    public CompletableFuture<Transaction> completion(Long transactionId) {
+        return inFlight.get(transactionId);
+    }
+
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    private void run(PendingPaymentCommand command, CompletableFuture<Transaction> completion) {
+        Long id = command.getTransactionId();
+        try {
+            // Crypto payments finish on the gateway's callback pool, freeing this worker immediately
+            command.executeAsync().whenComplete((transaction, error) -> {
+                inFlight.remove(id);
+                if (error == null) {
+                    completion.complete(transaction);
+                } else {
+                    log.error("Pending payment {} failed: {}", id, error.getMessage());
+                    completion.completeExceptionally(error);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(id);
+            log.error("Pending payment {} failed: {}", id, e.getMessage());
+            completion.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Requeue payments left PENDING by a previous shutdown or crash. Crypto payments already handed
+     * to the gateway are left to the confirmation service, since their outcome is unknown.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        List<Transaction> pending = transactionRepository.findByStatusAndTransactionHashIsNullAndSubmittedAtIsNull(
+            Transaction.TransactionStatus.PENDING);
+        int requeued = 0;
+        for (Transaction transaction : pending) {
+            try {
+                submit(new PendingPaymentCommand(paymentService, transaction));
+                requeued++;
+            } catch (RejectedExecutionException e) {
+                log.warn("Pipeline full; {} pending payments left for the next restart", pending.size() - requeued);
+                break;
+            }
+        }
+        if (requeued > 0) {
+            log.info("Requeued {} pending payments", requeued);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.digibank.service;
+
+import com.digibank.model.Transaction;
+
+/**
+ * A payment was refused (for example, insufficient balance). Carries the FAILED row to record,
+ * which is written only once the refused payment's own transaction has ended.
+ */
+public class PaymentRejectedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Transaction rejection;
+
+    public PaymentRejectedException(String reason, Transaction rejection) {
+        super(reason);
+        this.rejection = rejection;
+    }
+
+    public Transaction getRejection() {
+        return rejection;
+    }
+}
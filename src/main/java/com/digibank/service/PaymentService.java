@@ -1,26 +1,48 @@
 package com.digibank.service;
 
-import com.digibank.model.Account;
+import com.digibank.dto.BatchItemResult;
+import com.digibank.dto.BatchPaymentRequest;
+import com.digibank.metrics.PaymentStageTimer;
 import com.digibank.model.Transaction;
 import com.digibank.model.User;
-import com.digibank.pattern.adapter.CryptoAdapterFactory;
-import com.digibank.pattern.adapter.CryptoPaymentAdapter;
+import com.digibank.pattern.adapter.CryptoAdapterRegistry;
+import com.digibank.pattern.adapter.GatewayTimeoutException;
+import com.digibank.pattern.command.PaymentCommand;
 import com.digibank.pattern.observer.NotificationSubject;
 import com.digibank.pattern.singleton.CityController;
 import com.digibank.pattern.template.PaymentSecurityCheck;
 import com.digibank.repository.AccountRepository;
 import com.digibank.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @Service
 public class PaymentService {
     private static final Logger log = LoggerFactory.getLogger(PaymentService.class);
+
     @Autowired
     private AccountRepository accountRepository;
 
@@ -36,116 +58,613 @@ public class PaymentService {
     @Autowired
     private AuditService auditService;
 
-    @Transactional
-    public Transaction processFiatPayment(User user, Account account, BigDecimal amount,
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TransactionTemplate itemSavepoint;
+
+    @Autowired
+    private CryptoAdapterRegistry cryptoAdapters;
+
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+
+    @Autowired
+    private PaymentStageTimer stageTimer;
+
+    @Autowired
+    private SpendingSummaryService spendingSummary;
+
+    @Autowired
+    private RevenueAnalyticsService revenueAnalytics;
+
+    @Autowired
+    private BalanceCache balanceCache;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @PostConstruct
+    void init() {
+        itemSavepoint = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        itemSavepoint.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+    }
+
+    public Transaction processFiatPayment(User user, BigDecimal amount,
                                          Transaction.ServiceType serviceType, String description) {
-        // Template Method: Security check
-        if (!securityCheck.performSecurityCheck(user, amount)) {
-            throw new RuntimeException("Security check failed");
+        long start = System.nanoTime();
+        String outcome = "denied";
+        try {
+            // Template Method: Security check
+            checkSecurity(user, amount, Transaction.PaymentType.FIAT, serviceType, null);
+            outcome = "failed";
+            Transaction savedTx = executeFiatPayment(user, amount, serviceType, description);
+            outcome = "completed";
+            return savedTx;
+        } finally {
+            stageTimer.recordPayment(Transaction.PaymentType.FIAT, serviceType, outcome, System.nanoTime() - start);
         }
+    }
 
-        if (account.getFiatBalance().compareTo(amount) < 0) {
-            Transaction failedTx = createFailedTransaction(user, Transaction.PaymentType.FIAT, amount, serviceType, description);
-            notificationSubject.notifyObservers(failedTx);
-            throw new RuntimeException("Insufficient fiat balance");
-        }
+    private Transaction executeFiatPayment(User user, BigDecimal amount,
+                                           Transaction.ServiceType serviceType, String description) {
+        return inTransaction(() -> {
+            // Guarded single-statement debit: no prior SELECT and no lost-update window
+            AccountRepository.Balance newBalance = debit(Transaction.PaymentType.FIAT, serviceType,
+                    () -> accountRepository.debitFiat(user.getId(), amount))
+                .orElseThrow(() -> rejectPayment(user, Transaction.PaymentType.FIAT, amount, serviceType,
+                    description, "Insufficient fiat balance"));
+            log.debug("Fiat balance for user {} is now {}", user.getId(), newBalance.getFiatBalance());
 
-        account.setFiatBalance(account.getFiatBalance().subtract(amount));
-        accountRepository.save(account);
+            Transaction transaction = fiatPayment(user, amount, serviceType, description);
+            Transaction savedTx = stageTimer.time("insert", Transaction.PaymentType.FIAT, serviceType,
+                () -> transactionRepository.save(transaction));
+            fiatPaymentSaved(savedTx);
+            return savedTx;
+        });
+    }
 
+    private Transaction fiatPayment(User user, BigDecimal amount, Transaction.ServiceType serviceType,
+                                    String description) {
         Transaction transaction = new Transaction();
+        transaction.setReference(idGenerator.nextReference());
         transaction.setUser(user);
         transaction.setPaymentType(Transaction.PaymentType.FIAT);
         transaction.setServiceType(serviceType);
         transaction.setAmount(amount);
         transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
         transaction.setDescription(description);
+        transaction.setIdempotencyKey(idempotencyService.currentKey());
+        return transaction;
+    }
 
-        Transaction savedTx = transactionRepository.save(transaction);
-
-        // Singleton: Update city controller metrics
-        CityController.getInstance().incrementTransactionCount();
-        CityController.getInstance().addRevenue(amount.longValue());
-
-        // Observer: Notify all observers
-        notificationSubject.notifyObservers(savedTx);
+    private void fiatPaymentSaved(Transaction savedTx) {
+        revenueAnalytics.record(savedTx, null);
 
         // Audit logging
-        auditService.logPayment(user.getId(), "FIAT", amount, serviceType);
+        stageTimer.run("audit", Transaction.PaymentType.FIAT, savedTx.getServiceType(),
+            () -> auditService.logPayment(savedTx.getUser().getId(), "FIAT", savedTx.getAmount(),
+                savedTx.getServiceType()));
 
-        log.info("Fiat payment processed: {} for user {}", amount, user.getUsername());
-        return savedTx;
+        afterCommit(savedTx);
+        log.info("Fiat payment processed: {} for user {}", savedTx.getAmount(), savedTx.getUser().getUsername());
     }
 
-    @Transactional
-    public Transaction processCryptoPayment(User user, Account account, BigDecimal amount,
+    public Transaction processCryptoPayment(User user, BigDecimal amount,
                                           String cryptoNetwork, Transaction.ServiceType serviceType, String description) {
-        // Template Method: Security check
-        if (!securityCheck.performSecurityCheck(user, amount)) {
-            throw new RuntimeException("Security check failed");
+        long start = System.nanoTime();
+        String outcome = "denied";
+        try {
+            // Template Method: Security check
+            checkSecurity(user, amount, Transaction.PaymentType.CRYPTO, serviceType, cryptoNetwork);
+            outcome = "failed";
+            Transaction savedTx = executeCryptoPayment(user, amount, cryptoNetwork, serviceType, description);
+            outcome = "submitted";
+            return savedTx;
+        } catch (RejectedExecutionException e) {
+            outcome = "rejected";
+            throw e;
+        } finally {
+            stageTimer.recordPayment(Transaction.PaymentType.CRYPTO, serviceType, outcome, System.nanoTime() - start);
         }
+    }
+
+    private Transaction executeCryptoPayment(User user, BigDecimal amount, String cryptoNetwork,
+                                             Transaction.ServiceType serviceType, String description) {
+        // Reserve funds in a short transaction; the gateway is called without holding a connection
+        Transaction reserved = reserveCrypto(user, amount, cryptoNetwork, serviceType, description, true);
 
-        if (account.getCryptoBalance().compareTo(amount) < 0) {
-            Transaction failedTx = createFailedTransaction(user, Transaction.PaymentType.CRYPTO, amount, serviceType, description);
-            notificationSubject.notifyObservers(failedTx);
-            throw new RuntimeException("Insufficient crypto balance");
+        // Adapter Pattern: the network's gateway enforces its own deadline and circuit breaker
+        String transactionHash;
+        try {
+            transactionHash = stageTimer.time("gateway", Transaction.PaymentType.CRYPTO, serviceType,
+                () -> cryptoAdapters.gateway(cryptoNetwork).processPayment(walletAddress(user), amount).join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof GatewayTimeoutException timeout) {
+                awaitLateAnswer(reserved.getId(), timeout);
+                return reserved;
+            }
+            inTransaction(() -> releaseReservation(reserved.getId(), "gateway error: " + describe(e.getCause())));
+            throw e.getCause() instanceof RejectedExecutionException rejected
+                ? rejected : new RuntimeException("Crypto gateway error: " + describe(e.getCause()));
         }
 
-        // Adapter Pattern: Use appropriate crypto adapter
-        CryptoPaymentAdapter adapter = CryptoAdapterFactory.getAdapter(cryptoNetwork);
-        String walletAddress = "user_" + user.getId() + "_wallet";
-        String transactionHash = adapter.processPayment(walletAddress, amount, cryptoNetwork);
+        Transaction savedTx = inTransaction(() -> settleCrypto(reserved.getId(), transactionHash));
+        log.info("Crypto payment submitted: {} {} for user {}", amount, cryptoNetwork, user.getUsername());
+        return savedTx;
+    }
+
+    /**
+     * The gateway missed its deadline but the call may still go through, so the funds stay reserved.
+     * A late answer settles or releases the payment; if none ever comes, the confirmation service
+     * expires it.
+     */
+    private void awaitLateAnswer(Long transactionId, GatewayTimeoutException timeout) {
+        log.warn("Crypto payment {} outcome unknown: {}", transactionId, timeout.getMessage());
+        timeout.outcome().whenComplete((transactionHash, error) -> {
+            try {
+                if (error == null) {
+                    inTransaction(() -> settleCrypto(transactionId, (String) transactionHash));
+                } else {
+                    inTransaction(() -> releaseReservation(transactionId, "gateway error: " + describe(error)));
+                }
+            } catch (RuntimeException e) {
+                log.error("Applying late gateway answer for payment {} failed: {}", transactionId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Security check and debit for a fiat payment inside the caller's (batch) transaction.
+     * The row is returned unsaved so the batch can insert all of its rows together.
+     */
+    public StagedPayment stageFiatPayment(User user, BigDecimal amount, Transaction.ServiceType serviceType,
+                                          String description) {
+        // Template Method: Security check
+        checkSecurity(user, amount, Transaction.PaymentType.FIAT, serviceType, null);
+        AccountRepository.Balance balance = timedDebit(Transaction.PaymentType.FIAT, serviceType,
+                () -> accountRepository.debitFiat(user.getId(), amount))
+            .orElseThrow(() -> rejectPayment(user, Transaction.PaymentType.FIAT, amount, serviceType,
+                description, "Insufficient fiat balance"));
+        return new StagedPayment(fiatPayment(user, amount, serviceType, description), balance);
+    }
+
+    /**
+     * Security check and fund reservation for a crypto payment inside the caller's (batch) transaction.
+     * The unsaved row is PENDING with funds reserved and no hash, which is what the payment pipeline
+     * submits to the gateway once the batch has committed.
+     */
+    public StagedPayment stageCryptoPayment(User user, BigDecimal amount, String cryptoNetwork,
+                                            Transaction.ServiceType serviceType, String description) {
+        // Template Method: Security check
+        checkSecurity(user, amount, Transaction.PaymentType.CRYPTO, serviceType, cryptoNetwork);
+        AccountRepository.Balance balance = timedDebit(Transaction.PaymentType.CRYPTO, serviceType,
+                () -> accountRepository.debitCrypto(user.getId(), amount))
+            .orElseThrow(() -> rejectPayment(user, Transaction.PaymentType.CRYPTO, amount, serviceType,
+                description, "Insufficient crypto balance"));
+        return new StagedPayment(cryptoReservation(user, amount, cryptoNetwork, serviceType, description, false),
+            balance);
+    }
+
+    /**
+     * Hand a reserved crypto payment back when it could not be queued for the gateway
+     */
+    public Transaction abandonReservation(Long transactionId, String reason) {
+        return inTransaction(() -> releaseReservation(transactionId, reason));
+    }
 
-        account.setCryptoBalance(account.getCryptoBalance().subtract(amount));
-        accountRepository.save(account);
+    private Transaction reserveCrypto(User user, BigDecimal amount, String cryptoNetwork,
+                                      Transaction.ServiceType serviceType, String description, boolean submit) {
+        return inTransaction(() -> {
+            debit(Transaction.PaymentType.CRYPTO, serviceType, () -> accountRepository.debitCrypto(user.getId(), amount))
+                .orElseThrow(() -> rejectPayment(user, Transaction.PaymentType.CRYPTO, amount, serviceType,
+                    description, "Insufficient crypto balance"));
 
+            Transaction transaction = cryptoReservation(user, amount, cryptoNetwork, serviceType, description, submit);
+            Transaction saved = stageTimer.time("insert", Transaction.PaymentType.CRYPTO, serviceType,
+                () -> transactionRepository.save(transaction));
+            revenueAnalytics.record(saved, null);
+            return saved;
+        });
+    }
+
+    private Transaction cryptoReservation(User user, BigDecimal amount, String cryptoNetwork,
+                                          Transaction.ServiceType serviceType, String description, boolean submit) {
         Transaction transaction = new Transaction();
+        transaction.setReference(idGenerator.nextReference());
         transaction.setUser(user);
         transaction.setPaymentType(Transaction.PaymentType.CRYPTO);
         transaction.setServiceType(serviceType);
         transaction.setAmount(amount);
-        transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
+        transaction.setStatus(Transaction.TransactionStatus.PENDING);
         transaction.setCryptoNetwork(cryptoNetwork);
-        transaction.setTransactionHash(transactionHash);
+        transaction.setFundsReserved(true);
+        transaction.setSubmittedAt(submit ? LocalDateTime.now() : null);
+        transaction.setIdempotencyKey(idempotencyService.currentKey());
         transaction.setDescription(description);
+        return transaction;
+    }
+
+    /**
+     * Accept-then-process: validate and persist a PENDING transaction without touching the balance.
+     * The debit happens later in {@link #completePendingPayment(Long)} on a pipeline worker.
+     */
+    public Transaction acceptPayment(User user, Transaction.PaymentType paymentType, BigDecimal amount,
+                                     String cryptoNetwork, Transaction.ServiceType serviceType, String description) {
+        // Template Method: Security check
+        checkSecurity(user, amount, paymentType, serviceType, cryptoNetwork);
 
+        Transaction transaction = new Transaction();
+        transaction.setReference(idGenerator.nextReference());
+        transaction.setUser(user);
+        transaction.setPaymentType(paymentType);
+        transaction.setServiceType(serviceType);
+        transaction.setAmount(amount);
+        transaction.setStatus(Transaction.TransactionStatus.PENDING);
+        transaction.setCryptoNetwork(cryptoNetwork);
+        transaction.setDescription(description);
         Transaction savedTx = transactionRepository.save(transaction);
+        revenueAnalytics.record(savedTx, null);
+        return savedTx;
+    }
 
-        // Singleton: Update city controller metrics
-        CityController.getInstance().incrementTransactionCount();
-        CityController.getInstance().addRevenue(amount.longValue());
+    /**
+     * Move a PENDING transaction to COMPLETED or FAILED. The row is locked so that
+     * a transaction requeued on another node is never processed twice. Crypto payments
+     * complete once the gateway answers, on the gateway's callback pool, so pipeline
+     * workers never wait on a chain.
+     */
+    public CompletableFuture<Transaction> completePendingPayment(Long transactionId) {
+        Transaction transaction = inTransaction(() -> {
+            Transaction pending = transactionRepository.findWithLockById(transactionId)
+                .orElseThrow(() -> new RuntimeException("Transaction not found"));
+            if (pending.getStatus() != Transaction.TransactionStatus.PENDING || pending.isFundsReserved()) {
+                return pending;
+            }
 
-        // Observer: Notify all observers
-        notificationSubject.notifyObservers(savedTx);
+            User user = pending.getUser();
+            BigDecimal amount = pending.getAmount();
+            boolean fiat = pending.getPaymentType() == Transaction.PaymentType.FIAT;
+            boolean debited = debit(pending.getPaymentType(), pending.getServiceType(), () -> fiat
+                ? accountRepository.debitFiat(user.getId(), amount)
+                : accountRepository.debitCrypto(user.getId(), amount)).isPresent();
+            if (!debited) {
+                return failPending(pending, "insufficient " + (fiat ? "fiat" : "crypto") + " balance");
+            }
+            if (!fiat) {
+                pending.setFundsReserved(true);
+                return transactionRepository.save(pending);
+            }
 
-        // Audit logging
-        auditService.logPayment(user.getId(), "CRYPTO", amount, serviceType);
+            pending.setStatus(Transaction.TransactionStatus.COMPLETED);
+            Transaction savedTx = transactionRepository.save(pending);
+            revenueAnalytics.record(savedTx, Transaction.TransactionStatus.PENDING);
+
+            // Audit logging
+            auditService.logPayment(user.getId(), "FIAT", amount, pending.getServiceType());
+
+            afterCommit(savedTx);
+            log.info("Pending payment {} completed for user {}", savedTx.getId(), user.getUsername());
+            return savedTx;
+        });
 
-        log.info("Crypto payment processed: {} {} for user {}", amount, cryptoNetwork, user.getUsername());
+        if (transaction.getStatus() != Transaction.TransactionStatus.PENDING || !transaction.isFundsReserved()
+                || transaction.getTransactionHash() != null
+                || transactionRepository.markSubmitted(transactionId, LocalDateTime.now()) == 0) {
+            return CompletableFuture.completedFuture(transaction);
+        }
+        // Reserved crypto (including reservations left by a restart): submit to the gateway
+        long gatewayStart = System.nanoTime();
+        return cryptoAdapters.gateway(transaction.getCryptoNetwork())
+            .processPayment(walletAddress(transaction.getUser()), transaction.getAmount())
+            .handle((transactionHash, error) -> {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                stageTimer.recordStage("gateway", transaction.getPaymentType().name(),
+                    transaction.getServiceType().name(),
+                    cause == null ? "success" : cause instanceof GatewayTimeoutException ? "timeout" : "error",
+                    System.nanoTime() - gatewayStart);
+                if (cause instanceof GatewayTimeoutException timeout) {
+                    awaitLateAnswer(transactionId, timeout);
+                    return transaction;
+                }
+                return cause == null
+                    ? inTransaction(() -> settleCrypto(transactionId, transactionHash))
+                    : inTransaction(() -> releaseReservation(transactionId, "gateway error: " + describe(cause)));
+            });
+    }
+
+    // Gateway accepted the payment: keep it PENDING, with funds reserved, until the chain confirms it
+    private Transaction settleCrypto(Long transactionId, String transactionHash) {
+        Transaction transaction = transactionRepository.findWithLockById(transactionId)
+            .orElseThrow(() -> new RuntimeException("Transaction not found"));
+        if (transaction.getStatus() != Transaction.TransactionStatus.PENDING) {
+            return transaction;
+        }
+        transaction.setTransactionHash(transactionHash);
+        Transaction savedTx = transactionRepository.save(transaction);
+        log.info("Crypto payment {} submitted on {}, awaiting confirmation", savedTx.getId(), savedTx.getCryptoNetwork());
         return savedTx;
     }
 
-    private Transaction createFailedTransaction(User user, Transaction.PaymentType paymentType,
-                                               BigDecimal amount, Transaction.ServiceType serviceType, String description) {
+    /**
+     * Complete crypto payments confirmed on chain with one bulk update. Only the rows this call
+     * moved out of PENDING are audited and notified, so concurrent pollers cannot double count.
+     */
+    public List<Transaction> confirmCryptoPayments(List<Long> transactionIds) {
+        return inTransaction(() -> {
+            List<Long> confirmed = transactionRepository.markConfirmed(transactionIds);
+            List<Transaction> transactions = transactionRepository.findAllById(confirmed);
+            for (Transaction transaction : transactions) {
+                revenueAnalytics.record(transaction, Transaction.TransactionStatus.PENDING);
+                // Audit logging
+                auditService.logPayment(transaction.getUser().getId(), "CRYPTO", transaction.getAmount(),
+                    transaction.getServiceType());
+                afterCommit(transaction);
+            }
+            return transactions;
+        });
+    }
+
+    /**
+     * Give up on a submitted crypto payment that was never confirmed and return the funds
+     */
+    public Transaction expireCryptoPayment(Long transactionId) {
+        return inTransaction(() -> releaseReservation(transactionId, "not confirmed on chain in time"));
+    }
+
+    // Gateway refused, circuit open, or never confirmed: return the reserved funds and fail the transaction
+    private Transaction releaseReservation(Long transactionId, String reason) {
+        Transaction transaction = transactionRepository.findWithLockById(transactionId)
+            .orElseThrow(() -> new RuntimeException("Transaction not found"));
+        if (transaction.getStatus() != Transaction.TransactionStatus.PENDING || !transaction.isFundsReserved()) {
+            return transaction;
+        }
+        accountRepository.creditCrypto(transaction.getUser().getId(), transaction.getAmount())
+            .ifPresent(balanceCache::afterCommit);
+        transaction.setFundsReserved(false);
+        return failPending(transaction, reason);
+    }
+
+    private void checkSecurity(User user, BigDecimal amount, Transaction.PaymentType paymentType,
+                               Transaction.ServiceType serviceType, String cryptoNetwork) {
+        boolean passed = stageTimer.time("security_check", paymentType, serviceType,
+            () -> securityCheck.performSecurityCheck(user, amount, paymentType, serviceType, cryptoNetwork), ok -> ok ? "passed" : "denied");
+        if (!passed) {
+            throw new RuntimeException("Security check failed");
+        }
+    }
+
+    private Optional<AccountRepository.Balance> debit(Transaction.PaymentType paymentType,
+                                                      Transaction.ServiceType serviceType,
+                                                      Supplier<Optional<AccountRepository.Balance>> debit) {
+        Optional<AccountRepository.Balance> balance = timedDebit(paymentType, serviceType, debit);
+        balance.ifPresent(balanceCache::afterCommit);
+        return balance;
+    }
+
+    // Debit without publishing the new balance; batches publish it only for items that are kept
+    private Optional<AccountRepository.Balance> timedDebit(Transaction.PaymentType paymentType,
+                                                           Transaction.ServiceType serviceType,
+                                                           Supplier<Optional<AccountRepository.Balance>> debit) {
+        return stageTimer.time("debit", paymentType, serviceType, debit,
+            result -> result.isPresent() ? "success" : "insufficient");
+    }
+
+    private static String walletAddress(User user) {
+        return "user_" + user.getId() + "_wallet";
+    }
+
+    private static String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof TimeoutException ? "gateway deadline exceeded" : cause.getMessage();
+    }
+
+    public void cancelPendingPayment(Long transactionId) {
+        inTransaction(() -> transactionRepository.findWithLockById(transactionId)
+            .filter(transaction -> transaction.getStatus() == Transaction.TransactionStatus.PENDING)
+            .map(transaction -> {
+                transaction.setStatus(Transaction.TransactionStatus.CANCELLED);
+                Transaction cancelled = transactionRepository.save(transaction);
+                revenueAnalytics.record(cancelled, Transaction.TransactionStatus.PENDING);
+                return cancelled;
+            })
+            .orElse(null));
+    }
+
+    private Transaction failPending(Transaction transaction, String reason) {
+        transaction.setStatus(Transaction.TransactionStatus.FAILED);
+        Transaction failedTx = transactionRepository.save(transaction);
+        revenueAnalytics.record(failedTx, Transaction.TransactionStatus.PENDING);
+        notificationSubject.notifyObservers(failedTx);
+        log.warn("Pending payment {} failed: {}", failedTx.getId(), reason);
+        return failedTx;
+    }
+
+    /**
+     * Run many payment commands in one unit of work: one transaction, one commit.
+     * Every item's security check and debit run first; the debits are native UPDATE ... RETURNING
+     * statements and go out one at a time. The transaction rows are then inserted together in one
+     * flush, so Hibernate sends them as JDBC batches.
+     * In BEST_EFFORT mode each item's debit runs under its own savepoint, so a failed item is undone
+     * on its own and the rest of the batch can still commit. Post-commit effects (cached balance,
+     * audit, analytics, notifications) are registered only for items whose rows were inserted.
+     * Crypto items only reserve funds here; nothing is sent to a gateway until the batch has
+     * committed, because a sent payment cannot be rolled back with the batch.
+     */
+    public List<BatchItemResult> processBatch(List<PaymentCommand> commands, BatchPaymentRequest.Mode mode) {
+        BatchItemResult[] results = new BatchItemResult[commands.size()];
+        Map<Integer, StagedPayment> staged = new LinkedHashMap<>();
+        List<Transaction> rejections = new ArrayList<>();
+        boolean allOrNothing = mode == BatchPaymentRequest.Mode.ALL_OR_NOTHING;
+        BatchItemResult.Status undone = null;
+        String reason = null;
+        try {
+            boolean committed = transactionTemplate.execute(status -> {
+                for (int i = 0; i < commands.size(); i++) {
+                    PaymentCommand command = commands.get(i);
+                    try {
+                        staged.put(i, allOrNothing
+                            ? stageBatchItem(command)
+                            : itemSavepoint.execute(itemStatus -> {
+                                StagedPayment item = stageBatchItem(command);
+                                // Surface this item's SQL errors inside its own savepoint
+                                entityManager.flush();
+                                return item;
+                            }));
+                    } catch (RuntimeException e) {
+                        results[i] = BatchItemResult.failed(i, e.getMessage());
+                        if (e instanceof PaymentRejectedException rejected) {
+                            rejections.add(rejected.getRejection());
+                        }
+                        if (allOrNothing) {
+                            status.setRollbackOnly();
+                            return false;
+                        }
+                        // Rolled back to the savepoint; drop whatever the failed item left in the session
+                        entityManager.clear();
+                    }
+                }
+                insertBatch(staged, results);
+                return true;
+            });
+            if (!committed) {
+                undone = BatchItemResult.Status.ROLLED_BACK;
+                reason = "Rolled back with batch";
+            }
+        } catch (RuntimeException e) {
+            // The insert or the commit failed, so nothing from this batch was persisted
+            log.error("Batch payment commit failed: {}", e.getMessage());
+            undone = BatchItemResult.Status.FAILED;
+            reason = "Batch commit failed";
+        }
+        // Recorded whether or not the batch committed, once its connection is back in the pool
+        rejections.forEach(this::recordRejection);
+
+        if (undone != null) {
+            for (int index : staged.keySet()) {
+                results[index] = new BatchItemResult(index, undone, reason, null);
+            }
+        }
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = new BatchItemResult(i, BatchItemResult.Status.SKIPPED, "Batch aborted", null);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private StagedPayment stageBatchItem(PaymentCommand command) {
+        if (!command.canExecute()) {
+            throw new IllegalArgumentException("Invalid payment request");
+        }
+        return command.stage();
+    }
+
+    private void insertBatch(Map<Integer, StagedPayment> staged, BatchItemResult[] results) {
+        if (staged.isEmpty()) {
+            return;
+        }
+        List<Transaction> rows = staged.values().stream().map(StagedPayment::transaction).toList();
+        transactionRepository.saveAll(rows);
+        entityManager.flush();
+
+        staged.forEach((index, item) -> {
+            Transaction savedTx = item.transaction();
+            balanceCache.afterCommit(item.balance());
+            if (savedTx.getPaymentType() == Transaction.PaymentType.CRYPTO) {
+                revenueAnalytics.record(savedTx, null);
+                results[index] = BatchItemResult.accepted(index, savedTx);
+            } else {
+                fiatPaymentSaved(savedTx);
+                results[index] = BatchItemResult.completed(index, savedTx);
+            }
+        });
+    }
+
+    /**
+     * Join a caller's transaction (batch) or start a new one. When joined, failures propagate
+     * to the caller without marking the shared transaction rollback-only.
+     */
+    private <T> T inTransaction(Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+        try {
+            return transactionTemplate.execute(status -> work.get());
+        } catch (PaymentRejectedException e) {
+            // The refused payment has rolled back and released its connection
+            recordRejection(e.getRejection());
+            throw e;
+        }
+    }
+
+    // Side effects run once, after the enclosing transaction has committed
+    private void afterCommit(Transaction savedTx) {
+        // Daily spend is the exception: it commits or rolls back together with the payment
+        stageTimer.run("aggregate", savedTx.getPaymentType(), savedTx.getServiceType(),
+            () -> spendingSummary.record(savedTx));
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // Singleton: Update city controller metrics
+                CityController.getInstance().recordPayment(savedTx.getPaymentType(), savedTx.getServiceType(),
+                    savedTx.getCryptoNetwork(), savedTx.getAmount());
+            }
+        });
+
+        // Observer: Notify all observers (dispatched by the subject once the transaction commits)
+        stageTimer.run("notify", savedTx.getPaymentType(), savedTx.getServiceType(),
+            () -> notificationSubject.notifyObservers(savedTx));
+    }
+
+    /**
+     * The payment's transaction rolls back with the exception. Its FAILED row is written afterwards
+     * by whoever started that transaction, so a rejection never needs a second connection.
+     */
+    private PaymentRejectedException rejectPayment(User user, Transaction.PaymentType paymentType, BigDecimal amount,
+                                                   Transaction.ServiceType serviceType, String description, String reason) {
         Transaction transaction = new Transaction();
+        transaction.setReference(idGenerator.nextReference());
         transaction.setUser(user);
         transaction.setPaymentType(paymentType);
         transaction.setServiceType(serviceType);
         transaction.setAmount(amount);
         transaction.setStatus(Transaction.TransactionStatus.FAILED);
         transaction.setDescription(description);
-        return transactionRepository.save(transaction);
+        return new PaymentRejectedException(reason, transaction);
     }
 
-    public void refundFiatPayment(User user, Account account, BigDecimal amount) {
-        account.setFiatBalance(account.getFiatBalance().add(amount));
-        accountRepository.save(account);
+    private void recordRejection(Transaction rejection) {
+        try {
+            inTransaction(() -> {
+                Transaction failedTx = transactionRepository.save(rejection);
+                revenueAnalytics.record(failedTx, null);
+                notificationSubject.notifyObservers(failedTx);
+                return failedTx;
+            });
+        } catch (RuntimeException e) {
+            log.error("Recording rejected payment for user {} failed: {}", rejection.getUser().getId(), e.getMessage());
+        }
+    }
+
+    public void refundFiatPayment(User user, BigDecimal amount) {
+        AccountRepository.Balance balance = accountRepository.creditFiat(user.getId(), amount)
+            .orElseThrow(() -> new RuntimeException("Account not found"));
+        balanceCache.afterCommit(balance);
         log.info("Refunded {} fiat to user {}", amount, user.getUsername());
     }
 
     public void logRefundAttempt(User user, BigDecimal amount, String network) {
         log.warn("Crypto refund attempt logged for user {}: {} {}", user.getUsername(), amount, network);
     }
-}
-
 
+    /**
+     * A batch item that has been checked and debited but whose row is not yet inserted
+     */
+    public record StagedPayment(Transaction transaction, AccountRepository.Balance balance) {
+    }
+}
@@ -0,0 +1,117 @@
+package com.digibank.service;
+
+import com.digibank.metrics.RevenueCube;
+import com.digibank.model.Transaction;
+import com.digibank.pattern.adapter.CryptoAdapterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Admin revenue analytics over an in-memory {@link RevenueCube}. The cube is seeded from the
+ * transactions table before this node takes traffic and then follows every status change this
+ * node commits. Other nodes' commits are only picked up at the next seed (restart).
+ */
+@Service
+@DependsOn("entityManagerFactory")
+public class RevenueAnalyticsService {
+    private static final Logger log = LoggerFactory.getLogger(RevenueAnalyticsService.class);
+
+    private final RevenueCube cube;
+    private final JdbcTemplate jdbcTemplate;
+    private final int retentionDays;
+
+    @Autowired
+    public RevenueAnalyticsService(CryptoAdapterRegistry cryptoAdapters, JdbcTemplate jdbcTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${analytics.retention-days:90}") int retentionDays) {
+        this.cube = new RevenueCube(cryptoAdapters.networks());
+        this.jdbcTemplate = jdbcTemplate;
+        this.retentionDays = retentionDays;
+        meterRegistry.gauge("analytics.cube.hours", cube, RevenueCube::hourCount);
+    }
+
+    // Amounts are rounded per row, as each later move rounds its own amount, so cells never drift
+    @PostConstruct
+    void seed() {
+        long start = System.nanoTime();
+        LocalDateTime since = LocalDateTime.now().minusDays(retentionDays);
+        jdbcTemplate.query("SELECT date_trunc('hour', timestamp) AS hour, service_type, payment_type, crypto_network, "
+                + "status, COUNT(*) AS tx_count, SUM(ROUND(amount, 2)) AS total FROM transactions WHERE timestamp >= ? "
+                + "GROUP BY 1, 2, 3, 4, 5",
+            (RowCallbackHandler) rs -> cube.add(
+                rs.getTimestamp("hour").toLocalDateTime(),
+                Transaction.ServiceType.valueOf(rs.getString("service_type")),
+                Transaction.PaymentType.valueOf(rs.getString("payment_type")),
+                rs.getString("crypto_network"),
+                Transaction.TransactionStatus.valueOf(rs.getString("status")),
+                rs.getLong("tx_count"),
+                rs.getBigDecimal("total")),
+            Timestamp.valueOf(since));
+        log.info("Revenue cube seeded with {} hours since {} in {} ms", cube.hourCount(), since,
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Count a transaction under its current status, moving it out of its previous status
+     * (null for a new row). Applied once the enclosing transaction commits.
+     */
+    public void record(Transaction transaction, Transaction.TransactionStatus previous) {
+        // Capture now: the entity may change again before the commit
+        LocalDateTime timestamp = transaction.getTimestamp();
+        Transaction.ServiceType serviceType = transaction.getServiceType();
+        Transaction.PaymentType paymentType = transaction.getPaymentType();
+        String network = transaction.getCryptoNetwork();
+        Transaction.TransactionStatus status = transaction.getStatus();
+        BigDecimal amount = transaction.getAmount();
+        Runnable update = () -> cube.move(timestamp, serviceType, paymentType, network, previous, status, amount);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    public List<RevenueCube.Row> query(LocalDateTime from, LocalDateTime to, RevenueCube.Granularity granularity,
+                                       Set<RevenueCube.Dimension> groupBy, RevenueCube.Slice slice) {
+        if (!from.isBefore(to)) {
+            throw new RuntimeException("Query range is empty");
+        }
+        return cube.query(from, to, granularity, groupBy, slice);
+    }
+
+    @Scheduled(cron = "${analytics.evict-cron:0 5 * * * *}")
+    public void evict() {
+        int evicted = cube.evictBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (evicted > 0) {
+            log.info("Evicted {} hours from the revenue cube", evicted);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        return cube.stats();
+    }
+}
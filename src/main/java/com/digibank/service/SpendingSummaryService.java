@@ -0,0 +1,103 @@
+package com.digibank.service;
+
+import com.digibank.dto.SpendingSummary;
+import com.digibank.dto.SpendingTotal;
+import com.digibank.model.Transaction;
+import com.digibank.repository.UserDailySpendRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Per-user daily spend by service and payment type. Each completed payment is added to its
+ * day in the payment's own transaction, so summaries read O(days) rows and never drift from
+ * committed transactions. Rebuilds recompute whole days from the transactions table under
+ * an advisory lock that payments take in shared mode, so a rebuild never loses a concurrent add.
+ */
+@Service
+public class SpendingSummaryService {
+    private static final Logger log = LoggerFactory.getLogger(SpendingSummaryService.class);
+
+    @Autowired
+    private UserDailySpendRepository dailySpendRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spending.reconcile-days:2}")
+    private int reconcileDays;
+
+    /**
+     * Add a payment that has just become COMPLETED; must run inside the transaction that completes it
+     */
+    public void record(Transaction transaction) {
+        if (transaction.getStatus() != Transaction.TransactionStatus.COMPLETED) {
+            return;
+        }
+        dailySpendRepository.add(transaction.getUser().getId(), transaction.getTimestamp().toLocalDate(),
+            transaction.getServiceType().name(), transaction.getPaymentType().name(), transaction.getAmount());
+    }
+
+    /**
+     * Totals for a calendar month, or the whole year when month is null
+     */
+    public SpendingSummary summarize(Long userId, int year, Integer month) {
+        LocalDate from = month != null ? LocalDate.of(year, month, 1) : LocalDate.of(year, 1, 1);
+        LocalDate to = month != null ? from.plusMonths(1) : from.plusYears(1);
+        List<SpendingTotal> breakdown = dailySpendRepository.summarize(userId, from, to);
+        long count = 0;
+        BigDecimal total = BigDecimal.ZERO;
+        for (SpendingTotal category : breakdown) {
+            count += category.count();
+            total = total.add(category.total());
+        }
+        return new SpendingSummary(userId, from, to, count, total, breakdown);
+    }
+
+    /**
+     * Recompute [from, to) from completed transactions, one month per database transaction
+     * so a multi-year backfill never holds long locks. Returns the number of rows written.
+     */
+    public int rebuild(LocalDate from, LocalDate to) {
+        if (!from.isBefore(to)) {
+            throw new RuntimeException("Rebuild range is empty");
+        }
+        int rows = 0;
+        for (LocalDate start = from; start.isBefore(to); ) {
+            LocalDate chunkStart = start;
+            LocalDate end = start.withDayOfMonth(1).plusMonths(1);
+            LocalDate chunkEnd = end.isAfter(to) ? to : end;
+            Integer written = transactionTemplate.execute(status -> {
+                // Exclusive: waits for in-flight payments to commit, holds new ones for the chunk, serialises nodes
+                jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('" + UserDailySpendRepository.REBUILD_LOCK + "'))");
+                dailySpendRepository.deleteDays(chunkStart, chunkEnd);
+                return dailySpendRepository.rebuildDays(chunkStart.atStartOfDay(), chunkEnd.atStartOfDay());
+            });
+            rows += written != null ? written : 0;
+            start = chunkEnd;
+        }
+        log.info("Rebuilt daily spend for {} to {}: {} rows", from, to, rows);
+        return rows;
+    }
+
+    /**
+     * Re-derive the most recent days nightly, repairing any drift from manual data fixes
+     */
+    @Scheduled(cron = "${spending.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        LocalDate today = LocalDate.now();
+        rebuild(today.minusDays(reconcileDays), today.plusDays(1));
+    }
+}
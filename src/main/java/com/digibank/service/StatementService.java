@@ -0,0 +1,135 @@
+package com.digibank.service;
+
+import com.digibank.dto.TransactionSummary;
+import com.digibank.repository.TransactionRepository;
+import com.digibank.repository.TransactionRepositoryCustom;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams account statements as CSV or NDJSON, optionally gzip-compressed on the fly.
+ * Rows are written as the database cursor yields them. A slow client blocks the writes,
+ * which stalls the cursor rather than buffering rows, so heap use does not depend on
+ * statement length. Each export holds a connection for its whole duration, so concurrent
+ * exports (statements and the audit log export) share a cap sized as a fraction of the pool.
+ */
+@Service
+public class StatementService {
+    private static final String CSV_HEADER =
+        "reference,timestamp,paymentType,serviceType,amount,status,cryptoNetwork,transactionHash,description\n";
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${statement.export.flush-rows:500}")
+    private int flushRows;
+
+    private final Semaphore exports;
+
+    public StatementService(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                            @Value("${export.pool-share:0.25}") double poolShare) {
+        this.exports = new Semaphore(Math.max(1, (int) (poolSize * poolShare)));
+    }
+
+    /**
+     * Reserve an export slot before the response is committed; throws when all slots are busy
+     */
+    public void acquireSlot() {
+        if (!exports.tryAcquire()) {
+            throw new RejectedExecutionException("Too many exports in progress");
+        }
+    }
+
+    /**
+     * Return a slot taken by {@link #acquireSlot()} for an export not written by this service
+     */
+    public void releaseSlot() {
+        exports.release();
+    }
+
+    /**
+     * Write the statement and release the slot taken by {@link #acquireSlot()}
+     */
+    public void write(Long userId, TransactionRepositoryCustom.StatementFilter filter, Format format,
+                      boolean gzip, OutputStream outputStream) throws IOException {
+        try {
+            OutputStream target = gzip ? new GZIPOutputStream(outputStream, 8192, true) : outputStream;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 8192);
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+            }
+            int[] rows = {0};
+            transactionRepository.streamStatement(userId, filter, row -> {
+                try {
+                    writer.write(format == Format.CSV ? toCsv(row) : objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                    // Push compressed data out regularly so the client sees progress
+                    if (++rows[0] % flushRows == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    // Client went away: abort the query instead of reading the rest of the history
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+            if (target instanceof GZIPOutputStream compressed) {
+                compressed.finish();
+            }
+        } finally {
+            releaseSlot();
+        }
+    }
+
+    private static String toCsv(TransactionSummary row) {
+        return String.join(",",
+            csv(row.reference()),
+            csv(row.timestamp()),
+            csv(row.paymentType()),
+            csv(row.serviceType()),
+            csv(row.amount() != null ? row.amount().toPlainString() : null),
+            csv(row.status()),
+            csv(row.cryptoNetwork()),
+            csv(row.transactionHash()),
+            csv(neutralise(row.description())));
+    }
+
+    // Free text typed by the user must not open as a formula in a spreadsheet
+    private static String neutralise(String text) {
+        if (text == null || text.isEmpty() || "=+-@".indexOf(text.charAt(0)) < 0) {
+            return text;
+        }
+        return "'" + text;
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,123 @@
+package com.digibank.service;
+
+import com.digibank.model.RevokedToken;
+import com.digibank.repository.RevokedTokenRepository;
+import com.digibank.security.BloomFilter;
+import com.digibank.security.VerifiedToken;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token revocation list. The per-request check is a Bloom filter probe in front of an
+ * exact in-memory set; the database copy is only read at startup and by the periodic sync.
+ */
+@Service
+public class TokenRevocationService {
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${jwt.revocation.expected-entries:100000}")
+    private long expectedEntries;
+
+    @Value("${jwt.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    // jti -> token expiry
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloom;
+    private LocalDateTime lastSync;
+
+    @PostConstruct
+    void init() {
+        lastSync = LocalDateTime.now();
+        for (RevokedToken token : revokedTokenRepository.findByExpiresAtAfter(Instant.now())) {
+            revoked.put(token.getJti(), token.getExpiresAt());
+        }
+        rebuildFilter();
+        log.info("Loaded {} revoked tokens", revoked.size());
+    }
+
+    /**
+     * Hot path: a few hash probes, no locks and no database access
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        String jti = token.id();
+        if (jti == null || !bloom.mightContain(jti)) {
+            return false;
+        }
+        return revoked.containsKey(jti);
+    }
+
+    public void revoke(VerifiedToken token) {
+        if (token.id() == null) {
+            throw new RuntimeException("Token cannot be revoked: missing jti");
+        }
+        RevokedToken entity = new RevokedToken();
+        entity.setJti(token.id());
+        entity.setUserId(token.userId());
+        entity.setExpiresAt(token.expiresAt());
+        revokedTokenRepository.save(entity);
+        remember(token.id(), token.expiresAt());
+        log.info("Revoked token {} for user {}", token.id(), token.username());
+    }
+
+    /**
+     * Pick up revocations made on other nodes
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval-ms:30000}")
+    public void sync() {
+        LocalDateTime since = lastSync.minusSeconds(5);
+        lastSync = LocalDateTime.now();
+        for (RevokedToken token : revokedTokenRepository.findByRevokedAtAfterAndExpiresAtAfter(since, Instant.now())) {
+            if (!revoked.containsKey(token.getJti())) {
+                remember(token.getJti(), token.getExpiresAt());
+            }
+        }
+    }
+
+    /**
+     * Drop entries whose tokens have expired anyway, then rebuild the filter
+     * since Bloom filters cannot delete
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.prune-interval-ms:600000}")
+    public void prune() {
+        Instant now = Instant.now();
+        int deleted = revokedTokenRepository.deleteExpired(now);
+        boolean removed = revoked.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+        if (removed) {
+            rebuildFilter();
+        }
+        if (deleted > 0) {
+            log.info("Pruned {} expired revoked tokens", deleted);
+        }
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    // Writers are serialised so a put cannot land in a filter that is being replaced
+    private synchronized void remember(String jti, Instant expiresAt) {
+        revoked.put(jti, expiresAt);
+        bloom.put(jti);
+    }
+
+    private synchronized void rebuildFilter() {
+        BloomFilter filter = new BloomFilter(Math.max(expectedEntries, revoked.size() * 2L), falsePositiveRate);
+        revoked.keySet().forEach(filter::put);
+        bloom = filter;
+    }
+}
@@ -0,0 +1,85 @@
+package com.digibank.security;
+
+import com.digibank.model.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Limits of {@link VelocityTracker} on a hand-driven clock. The start is aligned to a bucket
+ * boundary of both windows, so "one window later" is exactly when old buckets drop out.
+ */
+class VelocityTrackerTest {
+    private static final long START = 1_700_000_100_000L;
+    private static final Long USER = 1L;
+
+    private final AtomicLong now = new AtomicLong(START);
+
+    @Test
+    void perMinuteLimitRollsOverAfterOneMinute() {
+        VelocityTracker tracker = tracker(2, "1000", "10");
+
+        assertNull(fiat(tracker, "1"));
+        assertNull(fiat(tracker, "1"));
+        assertEquals("too many payments per minute", fiat(tracker, "1"));
+
+        now.set(START + 50_000);
+        assertEquals("too many payments per minute", fiat(tracker, "1"));
+        now.set(START + 60_000);
+        assertNull(fiat(tracker, "1"));
+    }
+
+    @Test
+    void fiatAndCryptoHaveSeparateHourlyLimits() {
+        VelocityTracker tracker = tracker(100, "100", "1");
+
+        assertNull(fiat(tracker, "100"));
+        assertEquals("hourly fiat amount limit exceeded", fiat(tracker, "0.01"));
+        // A full fiat allowance leaves the crypto allowance untouched, and vice versa
+        assertNull(crypto(tracker, "1"));
+        assertEquals("hourly crypto amount limit exceeded", crypto(tracker, "0.00000001"));
+        assertEquals("hourly fiat amount limit exceeded", fiat(tracker, "0.01"));
+    }
+
+    @Test
+    void deniedPaymentIsNotCounted() {
+        VelocityTracker tracker = tracker(2, "100", "10");
+
+        assertNull(fiat(tracker, "60"));
+        assertEquals("hourly fiat amount limit exceeded", fiat(tracker, "50"));
+        // Neither the denied amount nor its slot in the per-minute count was kept
+        assertNull(fiat(tracker, "40"));
+        assertEquals("too many payments per minute", fiat(tracker, "0.01"));
+    }
+
+    @Test
+    void hourlyAmountRollsOverAfterOneHour() {
+        VelocityTracker tracker = tracker(100, "100", "10");
+
+        assertNull(fiat(tracker, "100"));
+        now.set(START + 55 * 60_000);
+        assertEquals("hourly fiat amount limit exceeded", fiat(tracker, "0.01"));
+        now.set(START + 60 * 60_000);
+        assertNull(fiat(tracker, "100"));
+    }
+
+    private VelocityTracker tracker(long perMinute, String fiatPerHour, String cryptoPerHour) {
+        return new VelocityTracker(perMinute, new BigDecimal(fiatPerHour), new BigDecimal(cryptoPerHour), 3,
+            1000, 60, new SimpleMeterRegistry(), now::get);
+    }
+
+    private static String fiat(VelocityTracker tracker, String amount) {
+        return tracker.checkAndRecord(USER, new BigDecimal(amount), Transaction.PaymentType.FIAT,
+            Transaction.ServiceType.UTILITIES);
+    }
+
+    private static String crypto(VelocityTracker tracker, String amount) {
+        return tracker.checkAndRecord(USER, new BigDecimal(amount), Transaction.PaymentType.CRYPTO,
+            Transaction.ServiceType.UTILITIES);
+    }
+}
@@ -0,0 +1,127 @@
+package com.digibank.security.fraud;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link RiskProfileTable} lookups through growth and eviction, and the per-user features it keeps
+ */
+class RiskProfileTableTest {
+    private static final int FIAT = 0;
+    private static final int CRYPTO = 1;
+    private static final double ALPHA = 0.1;
+    private static final int WINDOW_MINUTES = 60;
+
+    @Test
+    void learnsAndReadsBackProfile() {
+        RiskProfileTable table = new RiskProfileTable(1000, WINDOW_MINUTES);
+
+        assertSame(RiskProfile.EMPTY, table.get(7, FIAT, 0));
+        assertTrue(table.learn(7, FIAT, 100, 9, 0, 0, ALPHA));
+
+        RiskProfile profile = table.get(7, FIAT, 0);
+        assertEquals(1, profile.payments());
+        assertEquals(1, profile.amountSamples());
+        assertEquals(100, profile.meanAmount(), 1e-6);
+        assertEquals(0, profile.stdDevAmount(), 1e-6);
+        assertEquals(1, profile.hourActivity(9));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void keepsAmountSamplesPerPaymentType() {
+        RiskProfileTable table = new RiskProfileTable(1000, WINDOW_MINUTES);
+
+        table.learn(7, FIAT, 100, 9, 0, 0, ALPHA);
+        table.learn(7, CRYPTO, 0.5, 9, 1, 0, ALPHA);
+        table.learn(7, CRYPTO, 0.5, 9, 1, 0, ALPHA);
+
+        RiskProfile fiat = table.get(7, FIAT, 0);
+        RiskProfile crypto = table.get(7, CRYPTO, 0);
+        assertEquals(3, fiat.payments());
+        assertEquals(1, fiat.amountSamples());
+        assertEquals(100, fiat.meanAmount(), 1e-6);
+        assertEquals(2, crypto.amountSamples());
+        assertEquals(0.5, crypto.meanAmount(), 1e-6);
+        assertEquals(1, crypto.networkMask());
+    }
+
+    @Test
+    void growsWithoutLosingUsers() {
+        RiskProfileTable table = new RiskProfileTable(100_000, WINDOW_MINUTES);
+        long initialCapacity = table.capacity();
+
+        for (long user = 1; user <= 50_000; user++) {
+            assertTrue(table.learn(user, FIAT, user, 0, 0, 0, ALPHA));
+        }
+
+        assertTrue(table.capacity() > initialCapacity);
+        assertEquals(50_000, table.size());
+        for (long user = 1; user <= 50_000; user++) {
+            assertEquals(user, table.get(user, FIAT, 0).meanAmount(), 1e-6 * user);
+        }
+    }
+
+    @Test
+    void evictionKeepsProbeChainsIntact() {
+        RiskProfileTable table = new RiskProfileTable(20_000, WINDOW_MINUTES);
+        // Odd users were last seen at minute 0, even users at minute 100
+        for (long user = 1; user <= 10_000; user++) {
+            table.learn(user, FIAT, user, 0, 0, user % 2 == 0 ? 100 : 0, ALPHA);
+        }
+
+        assertEquals(5_000, table.evictIdle(50));
+
+        assertEquals(5_000, table.size());
+        for (long user = 1; user <= 10_000; user++) {
+            RiskProfile profile = table.get(user, FIAT, 100);
+            if (user % 2 == 0) {
+                assertEquals(user, profile.meanAmount(), 1e-6 * user);
+            } else {
+                assertSame(RiskProfile.EMPTY, profile);
+            }
+        }
+    }
+
+    @Test
+    void failureWindowResets() {
+        RiskProfileTable table = new RiskProfileTable(1000, WINDOW_MINUTES);
+
+        table.recordFailure(7, 0);
+        table.recordFailure(7, 5);
+        table.recordFailure(7, 10);
+        assertEquals(3, table.get(7, FIAT, 59).recentFailures());
+        assertEquals(0, table.get(7, FIAT, 60).recentFailures());
+
+        table.recordFailure(7, 61);
+        assertEquals(1, table.get(7, FIAT, 61).recentFailures());
+    }
+
+    @Test
+    void hoursAgeEvery64PaymentsEvenAfterTheCountSaturates() {
+        RiskProfileTable table = new RiskProfileTable(1000, WINDOW_MINUTES);
+
+        table.learn(7, FIAT, 1, 2, 0, 0, ALPHA);
+        for (int i = 1; i < 64; i++) {
+            table.learn(7, FIAT, 1, 9, 0, 0, ALPHA);
+        }
+        // The 64th payment aged hour 2 back to zero
+        assertEquals(0, table.get(7, FIAT, 0).hourActivity(2));
+        assertEquals(3, table.get(7, FIAT, 0).hourActivity(9));
+
+        for (int i = 64; i < 70_000; i++) {
+            table.learn(7, FIAT, 1, 3, 0, 0, ALPHA);
+        }
+        assertEquals(65_535, table.get(7, FIAT, 0).payments());
+        for (int i = 0; i < 4 * 64; i++) {
+            table.learn(7, FIAT, 1, 20, 0, 0, ALPHA);
+        }
+
+        RiskProfile profile = table.get(7, FIAT, 0);
+        assertEquals(0, profile.hourActivity(3));
+        assertEquals(3, profile.hourActivity(20));
+    }
+}
@@ -0,0 +1,222 @@
+package com.digibank.service;
+
+import com.digibank.dto.BatchItemResult;
+import com.digibank.dto.BatchPaymentRequest;
+import com.digibank.metrics.PaymentStageTimer;
+import com.digibank.model.Transaction;
+import com.digibank.model.User;
+import com.digibank.pattern.command.FiatPaymentCommand;
+import com.digibank.pattern.command.PaymentCommand;
+import com.digibank.pattern.observer.NotificationSubject;
+import com.digibank.pattern.template.PaymentSecurityCheck;
+import com.digibank.repository.AccountRepository;
+import com.digibank.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.SavepointManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link PaymentService#processBatch} against mocked repositories and an in-memory transaction
+ * manager with savepoints: post-commit effects must only follow items that were kept.
+ */
+class PaymentServiceBatchTest {
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    private final InMemoryTransactionManager transactionManager = new InMemoryTransactionManager();
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final AuditService auditService = mock(AuditService.class);
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final BalanceCache balanceCache = new BalanceCache(accountRepository, new SimpleMeterRegistry(), 100, 30);
+    private final PaymentService paymentService = new PaymentService();
+
+    @BeforeEach
+    void setUp() {
+        PaymentSecurityCheck securityCheck = mock(PaymentSecurityCheck.class);
+        when(securityCheck.performSecurityCheck(any(), any(), any(), any(), any())).thenReturn(true);
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(transactionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        PaymentStageTimer stageTimer = new PaymentStageTimer();
+        ReflectionTestUtils.setField(stageTimer, "meterRegistry", new SimpleMeterRegistry());
+
+        ReflectionTestUtils.setField(paymentService, "accountRepository", accountRepository);
+        ReflectionTestUtils.setField(paymentService, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(paymentService, "notificationSubject", mock(NotificationSubject.class));
+        ReflectionTestUtils.setField(paymentService, "securityCheck", securityCheck);
+        ReflectionTestUtils.setField(paymentService, "auditService", auditService);
+        ReflectionTestUtils.setField(paymentService, "transactionTemplate", new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(paymentService, "entityManager", entityManager);
+        ReflectionTestUtils.setField(paymentService, "idGenerator", new SnowflakeIdGenerator(1, 5000, System::currentTimeMillis));
+        ReflectionTestUtils.setField(paymentService, "stageTimer", stageTimer);
+        ReflectionTestUtils.setField(paymentService, "spendingSummary", mock(SpendingSummaryService.class));
+        ReflectionTestUtils.setField(paymentService, "revenueAnalytics", mock(RevenueAnalyticsService.class));
+        ReflectionTestUtils.setField(paymentService, "balanceCache", balanceCache);
+        ReflectionTestUtils.setField(paymentService, "idempotencyService", mock(IdempotencyService.class));
+        paymentService.init();
+    }
+
+    @Test
+    void bestEffortItemFailingAtFlushLeavesNoTrace() {
+        givenBalance(1L, "90.00");
+        givenBalance(2L, "40.00");
+        // First item's savepoint flushes fine, the second item's fails, the batch insert succeeds
+        doNothing().doThrow(new PersistenceException("value too long")).doNothing().when(entityManager).flush();
+
+        List<BatchItemResult> results = paymentService.processBatch(
+            List.of(payment(1L), payment(2L)), BatchPaymentRequest.Mode.BEST_EFFORT);
+
+        assertEquals(BatchItemResult.Status.COMPLETED, results.get(0).getStatus());
+        assertEquals(BatchItemResult.Status.FAILED, results.get(1).getStatus());
+        assertEquals(1, transactionManager.transaction.rolledBackSavepoints);
+        assertEquals(1, transactionManager.commits);
+
+        assertEquals(1L, balanceCache.stats().get("size"));
+        assertEquals(new BigDecimal("90.00"), balanceCache.get(1L).fiatBalance());
+        verify(auditService).logPayment(eq(1L), eq("FIAT"), any(), any());
+        verify(auditService, never()).logPayment(eq(2L), any(), any(), any());
+    }
+
+    @Test
+    void failedBatchInsertPublishesNothing() {
+        givenBalance(1L, "90.00");
+        givenBalance(2L, "40.00");
+        doNothing().doNothing().doThrow(new PersistenceException("connection reset")).when(entityManager).flush();
+
+        List<BatchItemResult> results = paymentService.processBatch(
+            List.of(payment(1L), payment(2L)), BatchPaymentRequest.Mode.BEST_EFFORT);
+
+        for (BatchItemResult result : results) {
+            assertEquals(BatchItemResult.Status.FAILED, result.getStatus());
+            assertEquals("Batch commit failed", result.getMessage());
+        }
+        assertEquals(0, transactionManager.commits);
+        assertEquals(0L, balanceCache.stats().get("size"));
+        verify(auditService, never()).logPayment(any(), any(), any(), any());
+    }
+
+    @Test
+    void rejectionAbortsAllOrNothingBatchAndIsRecordedAfterwards() {
+        givenBalance(1L, "90.00");
+        when(accountRepository.debitFiat(2L, AMOUNT)).thenReturn(Optional.empty());
+
+        List<BatchItemResult> results = paymentService.processBatch(
+            List.of(payment(1L), payment(2L), payment(3L)), BatchPaymentRequest.Mode.ALL_OR_NOTHING);
+
+        assertEquals(BatchItemResult.Status.ROLLED_BACK, results.get(0).getStatus());
+        assertEquals(BatchItemResult.Status.FAILED, results.get(1).getStatus());
+        assertEquals("Insufficient fiat balance", results.get(1).getMessage());
+        assertEquals(BatchItemResult.Status.SKIPPED, results.get(2).getStatus());
+        assertNull(results.get(0).getTransaction());
+        assertEquals(0L, balanceCache.stats().get("size"));
+        verify(auditService, never()).logPayment(any(), any(), any(), any());
+
+        // The batch rolled back; its rejection is then written in a transaction of its own
+        assertEquals(1, transactionManager.rollbacks);
+        assertEquals(1, transactionManager.commits);
+        verify(transactionRepository).save(any(Transaction.class));
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
+    private PaymentCommand payment(Long userId) {
+        User user = new User();
+        user.setId(userId);
+        user.setUsername("user" + userId);
+        return new FiatPaymentCommand(paymentService, user, AMOUNT, Transaction.ServiceType.UTILITIES, "batch item");
+    }
+
+    private void givenBalance(Long userId, String fiatBalance) {
+        AccountRepository.Balance balance = mock(AccountRepository.Balance.class);
+        when(balance.getUserId()).thenReturn(userId);
+        when(balance.getFiatBalance()).thenReturn(new BigDecimal(fiatBalance));
+        when(balance.getCryptoBalance()).thenReturn(BigDecimal.ZERO);
+        when(balance.getVersion()).thenReturn(1L);
+        when(accountRepository.debitFiat(userId, AMOUNT)).thenReturn(Optional.of(balance));
+    }
+
+    /**
+     * Single-threaded transaction manager with no-op savepoints; enough to drive synchronizations
+     * and NESTED propagation the way the JPA transaction manager does.
+     */
+    private static final class InMemoryTransactionManager extends AbstractPlatformTransactionManager {
+        private final InMemoryTransaction transaction = new InMemoryTransaction();
+        private int commits;
+        private int rollbacks;
+
+        InMemoryTransactionManager() {
+            setNestedTransactionAllowed(true);
+        }
+
+        @Override
+        protected Object doGetTransaction() {
+            return transaction;
+        }
+
+        @Override
+        protected boolean isExistingTransaction(Object transaction) {
+            return this.transaction.active;
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            this.transaction.active = true;
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            commits++;
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            rollbacks++;
+        }
+
+        @Override
+        protected void doCleanupAfterCompletion(Object transaction) {
+            this.transaction.active = false;
+        }
+    }
+
+    private static final class InMemoryTransaction implements SavepointManager {
+        private boolean active;
+        private int rolledBackSavepoints;
+
+        @Override
+        public Object createSavepoint() {
+            return new Object();
+        }
+
+        @Override
+        public void rollbackToSavepoint(Object savepoint) {
+            rolledBackSavepoints++;
+        }
+
+        @Override
+        public void releaseSavepoint(Object savepoint) {
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.digibank.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Uniqueness check for {@link SnowflakeIdGenerator}. Every thread draws ids from one shared
+ * generator; all ids are then sorted and checked for duplicates.
+ */
+class SnowflakeIdGeneratorTest {
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 200_000;
+
+    @Test
+    void concurrentIdsAreUniqueAndIncreasingPerThread() throws InterruptedException {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 5000, System::currentTimeMillis);
+        long[][] ids = new long[THREADS][IDS_PER_THREAD];
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            long[] slice = ids[t];
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < slice.length; i++) {
+                        slice[i] = generator.nextId();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            worker.start();
+        }
+        start.countDown();
+        done.await();
+
+        long[] all = new long[THREADS * IDS_PER_THREAD];
+        for (int t = 0; t < THREADS; t++) {
+            System.arraycopy(ids[t], 0, all, t * IDS_PER_THREAD, IDS_PER_THREAD);
+            // Each thread must see strictly increasing ids
+            for (int i = 1; i < IDS_PER_THREAD; i++) {
+                assertTrue(ids[t][i] > ids[t][i - 1], "ids not increasing on thread " + t);
+            }
+        }
+        Arrays.sort(all);
+        long collisions = 0;
+        for (int i = 1; i < all.length; i++) {
+            if (all[i] == all[i - 1]) {
+                collisions++;
+            }
+        }
+        assertEquals(0, collisions, "duplicate ids across threads");
+    }
+}